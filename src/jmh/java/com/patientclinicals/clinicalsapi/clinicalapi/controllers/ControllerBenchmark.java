@@ -0,0 +1,111 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.PatientReadCoalescer;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.PatientReadCoalescerProperties;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.WriteBehindIngestBuffer;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.WriteBehindProperties;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Controller methods called directly against {@link InMemoryRepositories}: the per-request work the
+ * controllers add on top of the database (mapping, paging, link building, entity construction).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerBenchmark {
+
+    private static final int PATIENTS = 10_000;
+    private static final int READINGS_PER_PATIENT = 100;
+
+    private InMemoryRepositories repositories;
+    private long seededReadings;
+    private PatientController patientController;
+    private ClinicalDataController clinicalDataController;
+    private ClinicalDataRequest request;
+    private long patientId;
+
+    @Setup
+    public void setUp() {
+        repositories = new InMemoryRepositories();
+        long start = Timestamp.valueOf("2025-01-01 00:00:00").getTime();
+        for (int p = 0; p < PATIENTS; p++) {
+            Patient patient = repositories.patientRepository.save(new Patient("First" + p, "Last" + p, 20 + p % 70));
+            if (p == PATIENTS / 2) {
+                List<ClinicalData> history = new ArrayList<>(READINGS_PER_PATIENT);
+                for (int i = 0; i < READINGS_PER_PATIENT; i++) {
+                    ClinicalData reading = new ClinicalData("hr", Integer.toString(60 + i % 40), new Timestamp(start + i * 60_000L));
+                    reading.setPatient(patient);
+                    history.add(repositories.clinicalDataRepository.save(reading));
+                }
+                patient.setClinicalData(history);
+                patientId = patient.getId();
+            }
+        }
+        seededReadings = repositories.readings.lastKey();
+        patientController = new PatientController(repositories.patientRepository, null, new ObjectMapper(), event -> { }, null,
+                new PatientReadCoalescer(new PatientReadCoalescerProperties(true), new SimpleMeterRegistry()));
+        WriteBehindIngestBuffer writeBehindDisabled = new WriteBehindIngestBuffer(
+                new WriteBehindProperties(false, 1, 1, Duration.ofSeconds(1), Duration.ofSeconds(1)),
+                null, null, new SimpleMeterRegistry());
+        clinicalDataController = new ClinicalDataController(repositories.clinicalDataRepository,
+                repositories.patientRepository, null, writeBehindDisabled, null, event -> { }, null);
+
+        request = new ClinicalDataRequest();
+        request.setPatientId(patientId);
+        request.setComponentName("bp");
+        request.setComponentValue("120/80");
+
+        // ServletUriComponentsBuilder.fromCurrentRequest() reads the bound request
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/patientservices/patients");
+        servletRequest.setContextPath("/patientservices");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest), true);
+    }
+
+    // readings stored by saveClinicalData
+    @TearDown(Level.Iteration)
+    public void dropSavedReadings() {
+        repositories.readings.tailMap(seededReadings, false).clear();
+    }
+
+    // single caller, so this measures the load and serialization, never a shared result
+    @Benchmark
+    public ResponseEntity<byte[]> getPatientById() {
+        return patientController.getById(patientId, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<PatientDetails> getPatientWithClinicalData() {
+        return patientController.getByIdWithIncludes(patientId, List.of(PatientController.INCLUDE_CLINICAL_DATA));
+    }
+
+    // full page, so the rel="next" link is built
+    @Benchmark
+    public ResponseEntity<List<Patient>> listPatientsPage() {
+        return patientController.list(patientId, PatientController.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> saveClinicalData() {
+        return clinicalDataController.saveClinicalData(request);
+    }
+}
@@ -0,0 +1,96 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.data.domain.Limit;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+/**
+ * Map-backed stand-ins for the repositories, so controller benchmarks measure the controller and not
+ * JDBC or a mocking framework. Only the methods the benchmarked endpoints call are implemented.
+ */
+final class InMemoryRepositories {
+
+    final NavigableMap<Long, Patient> patients = new ConcurrentSkipListMap<>();
+    final NavigableMap<Long, ClinicalData> readings = new ConcurrentSkipListMap<>();
+    private final AtomicLong patientIds = new AtomicLong();
+    private final AtomicLong readingIds = new AtomicLong();
+
+    final PatientRepository patientRepository = proxy(PatientRepository.class, (method, args) -> switch (method) {
+        case "findById" -> Optional.ofNullable(patients.get((Long) args[0]));
+        case "existsById" -> patients.containsKey((Long) args[0]);
+        case "findWithClinicalDataById" -> Optional.ofNullable(patients.get((Long) args[0]));
+        case "findByIdGreaterThanOrderByIdAsc" ->
+                first(patients.tailMap((Long) args[0], false), (Limit) args[1]);
+        case "save", "create" -> savePatient((Patient) args[0]);
+        default -> null;
+    });
+
+    final ClinicalDataRepository clinicalDataRepository = proxy(ClinicalDataRepository.class, (method, args) -> switch (method) {
+        case "findById" -> Optional.ofNullable(readings.get((Long) args[0]));
+        case "findPatientIdById" -> Optional.ofNullable(readings.get((Long) args[0]))
+                .map(r -> r.getPatient() == null ? null : r.getPatient().getId());
+        case "save", "create" -> saveReading((ClinicalData) args[0]);
+        default -> null;
+    });
+
+    private Patient savePatient(Patient patient) {
+        if (patient.getId() == null) {
+            patient.setId(patientIds.incrementAndGet());
+        }
+        patients.put(patient.getId(), patient);
+        return patient;
+    }
+
+    private ClinicalData saveReading(ClinicalData reading) {
+        if (reading.getId() == null) {
+            reading.setId(readingIds.incrementAndGet());
+        }
+        readings.put(reading.getId(), reading);
+        return reading;
+    }
+
+    private static <T> List<T> first(Map<Long, T> tail, Limit limit) {
+        List<T> page = new ArrayList<>(limit.max());
+        for (T value : tail.values()) {
+            if (page.size() == limit.max()) {
+                break;
+            }
+            page.add(value);
+        }
+        return page;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "InMemory" + type.getSimpleName();
+                };
+            }
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return result;
+        }));
+    }
+}
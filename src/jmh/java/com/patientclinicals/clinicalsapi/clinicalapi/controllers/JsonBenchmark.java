@@ -0,0 +1,90 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+
+/**
+ * Jackson cost of the request and response bodies, with an object mapper configured the way Spring Boot
+ * configures the one behind its message converters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+    static final String REQUEST_JSON = """
+            {"patientId":1,"componentName":"bp","componentValue":"120/80","measuredDateTime":"2025-01-01T08:00:00.000+00:00"}""";
+
+    private final ObjectWriter detailsWriter = OBJECT_MAPPER.writerFor(PatientDetails.class);
+    private final ObjectReader requestReader = OBJECT_MAPPER.readerFor(ClinicalDataRequest.class);
+    private final ObjectReader batchReader = OBJECT_MAPPER.readerFor(new TypeReference<List<ClinicalDataRequest>>() { });
+    private final byte[] requestJson = REQUEST_JSON.getBytes(StandardCharsets.UTF_8);
+
+    @State(Scope.Benchmark)
+    public static class History {
+
+        // readings nested in the patient (GET /patients/{id}?include=clinicalData) and entries in the batch body
+        @Param({"1", "10", "100", "1000"})
+        int readings;
+
+        PatientDetails details;
+        byte[] batchJson;
+
+        @Setup
+        public void setUp() {
+            Patient patient = new Patient("Ada", "Lovelace", 36);
+            patient.setId(1L);
+            List<ClinicalData> history = new ArrayList<>(readings);
+            long start = Timestamp.valueOf("2025-01-01 00:00:00").getTime();
+            for (int i = 0; i < readings; i++) {
+                ClinicalData reading = i % 2 == 0
+                        ? new ClinicalData("hr", Integer.toString(60 + i % 40), new Timestamp(start + i * 60_000L))
+                        : new ClinicalData("bp", (110 + i % 30) + "/" + (70 + i % 20), new Timestamp(start + i * 60_000L));
+                reading.setId((long) i + 1);
+                reading.setPatient(patient);
+                history.add(reading);
+            }
+            patient.setClinicalData(history);
+            details = PatientDetails.from(patient);
+            batchJson = Collections.nCopies(readings, REQUEST_JSON).stream()
+                    .collect(Collectors.joining(",", "[", "]"))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializePatientDetails(History history) throws IOException {
+        return detailsWriter.writeValueAsBytes(history.details);
+    }
+
+    @Benchmark
+    public ClinicalDataRequest deserializeClinicalDataRequest() throws IOException {
+        return requestReader.readValue(requestJson);
+    }
+
+    // body of POST /clinicaldata/clinicals/batch
+    @Benchmark
+    public List<ClinicalDataRequest> deserializeClinicalDataRequestBatch(History history) throws IOException {
+        return batchReader.readValue(history.batchJson);
+    }
+}
@@ -0,0 +1,19 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.analytics;
+
+import java.sql.Timestamp;
+
+/**
+ * One row of the grouped bucket query: the bucket's index from the start of the range, its aggregates
+ * over the numeric columns and the time of its latest reading.
+ */
+public record BucketAggregate(
+        long bucket,
+        long count,
+        Double min,
+        Double max,
+        Double avg,
+        Double secondaryMin,
+        Double secondaryMax,
+        Double secondaryAvg,
+        Timestamp lastMeasuredDateTime) {
+}
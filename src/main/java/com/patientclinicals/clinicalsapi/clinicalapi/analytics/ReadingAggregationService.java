@@ -0,0 +1,66 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.analytics;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ReadingPoint;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+
+/**
+ * Downsamples one component of a patient's readings into fixed-width time buckets aligned to the start
+ * of the requested range. The database groups and aggregates the typed numeric columns, so only one row
+ * per non-empty bucket leaves it; a second lookup fetches the raw value of each bucket's latest reading.
+ */
+@Service
+public class ReadingAggregationService {
+
+    // bounds the IN list of the latest-reading lookup
+    private static final int LOOKUP_CHUNK = 1000;
+
+    private final ClinicalDataRepository clinicalDataRepository;
+
+    public ReadingAggregationService(ClinicalDataRepository clinicalDataRepository) {
+        this.clinicalDataRepository = clinicalDataRepository;
+    }
+
+    /**
+     * Non-empty buckets in time order for readings measured in {@code [from, to)}. The interval must be a
+     * whole number of seconds, the resolution of the database's epoch arithmetic.
+     */
+    @Transactional(readOnly = true)
+    public List<ReadingBucket> aggregate(Long patientId, String component, Instant from, Instant to, Duration interval) {
+        long intervalSeconds = interval.toSeconds();
+        List<BucketAggregate> rows = clinicalDataRepository.aggregateBuckets(patientId, component,
+                Timestamp.from(from), Timestamp.from(to), intervalSeconds);
+        Map<Timestamp, String> lastValues = lastValues(patientId, component, rows);
+        List<ReadingBucket> buckets = new ArrayList<>(rows.size());
+        for (BucketAggregate row : rows) {
+            buckets.add(new ReadingBucket(from.plus(interval.multipliedBy(row.bucket())), row.count(),
+                    row.min(), row.max(), row.avg(), row.secondaryMin(), row.secondaryMax(), row.secondaryAvg(),
+                    lastValues.get(row.lastMeasuredDateTime())));
+        }
+        return buckets;
+    }
+
+    // raw value at each bucket's latest time; on equal times the later insert wins, as in the latest-vitals view
+    private Map<Timestamp, String> lastValues(Long patientId, String component, List<BucketAggregate> rows) {
+        Map<Timestamp, String> values = new HashMap<>();
+        for (int i = 0; i < rows.size(); i += LOOKUP_CHUNK) {
+            List<Timestamp> times = rows.subList(i, Math.min(i + LOOKUP_CHUNK, rows.size())).stream()
+                    .map(BucketAggregate::lastMeasuredDateTime)
+                    .toList();
+            for (ReadingPoint point : clinicalDataRepository.findPointsAt(patientId, component, times)) {
+                values.put(point.measuredDateTime(), point.componentValue());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,15 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.analytics;
+
+import java.time.Instant;
+
+/**
+ * Aggregate of the readings measured in {@code [start, start + interval)}.
+ * <p>
+ * {@code min}, {@code max} and {@code avg} cover the readings with a numeric value and are {@code null}
+ * when there are none. For compound values such as blood pressure ({@code "120/80"}) they describe the
+ * first number and the {@code secondary*} fields the second; otherwise the secondary fields are
+ * {@code null}. {@code last} is the raw value of the latest reading in the bucket.
+ */
+public record ReadingBucket(Instant start, long count, Double min, Double max, Double avg,
+                            Double secondaryMin, Double secondaryMax, Double secondaryAvg, String last) {
+}
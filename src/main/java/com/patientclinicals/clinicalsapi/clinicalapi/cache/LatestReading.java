@@ -0,0 +1,21 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+import java.sql.Timestamp;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+
+/**
+ * Most recent value of one component for a patient, as served by the latest-vitals endpoint.
+ */
+public record LatestReading(Long id, String componentValue, Timestamp measuredDateTime) {
+
+    static LatestReading of(ClinicalData clinicalData) {
+        return new LatestReading(clinicalData.getId(), clinicalData.getComponentValue(), clinicalData.getMeasuredDateTime());
+    }
+
+    // later measurement wins; ties go to the later insert
+    boolean isNewerThan(LatestReading other) {
+        int byTime = measuredDateTime.compareTo(other.measuredDateTime);
+        return byTime > 0 || (byTime == 0 && id != null && other.id != null && id > other.id);
+    }
+}
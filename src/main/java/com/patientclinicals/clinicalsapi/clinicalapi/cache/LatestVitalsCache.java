@@ -0,0 +1,180 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded, TTL-based cache of each patient's most recent reading per component, keyed by the primitive
+ * patient id. It is a 4-way set-associative table: a patient id hashes to one set and, when that set is
+ * full, the entry closest to expiry is evicted. Lookups are a hash plus at most four array reads, with no
+ * boxing and no locks.
+ * <p>
+ * Every write to a set bumps that set's stamp. A loader takes a {@link #stamp} before reading from the
+ * database and stores the result with {@link #putIfUnchanged}, so a snapshot loaded concurrently with a
+ * write is discarded instead of overwriting fresher state.
+ */
+@Component
+public class LatestVitalsCache {
+
+    private static final int WAYS = 4;
+
+    private record Entry(long patientId, Map<String, LatestReading> readings, long expiresAtNanos) {
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLongArray stamps;
+    private final int setMask;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public LatestVitalsCache(LatestVitalsCacheProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    LatestVitalsCache(LatestVitalsCacheProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        int sets = Integer.highestOneBit(Math.max(1, (properties.maxEntries() + WAYS - 1) / WAYS - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(sets * WAYS);
+        this.stamps = new AtomicLongArray(sets);
+        this.setMask = sets - 1;
+        this.ttlNanos = properties.ttl().toNanos();
+        this.nanoClock = nanoClock;
+        this.hits = Counter.builder("cache.gets").tag("cache", "latestVitals").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "latestVitals").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "latestVitals").register(meterRegistry);
+        Gauge.builder("cache.size", this, LatestVitalsCache::size).tag("cache", "latestVitals").register(meterRegistry);
+    }
+
+    /**
+     * Cached latest readings keyed by component name, or {@code null} on a miss.
+     */
+    public Map<String, LatestReading> get(long patientId) {
+        int base = setOf(patientId) * WAYS;
+        long now = nanoClock.getAsLong();
+        for (int way = 0; way < WAYS; way++) {
+            Entry e = slots.get(base + way);
+            if (e != null && e.patientId == patientId && e.expiresAtNanos - now > 0) {
+                hits.increment();
+                return e.readings;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public long stamp(long patientId) {
+        return stamps.get(setOf(patientId));
+    }
+
+    /**
+     * Caches a freshly loaded snapshot unless the patient's set was written since {@code stamp} was taken.
+     */
+    public void putIfUnchanged(long patientId, Map<String, LatestReading> readings, long stamp) {
+        int set = setOf(patientId);
+        int base = set * WAYS;
+        long now = nanoClock.getAsLong();
+        Entry fresh = new Entry(patientId, Map.copyOf(readings), now + ttlNanos);
+        while (stamps.get(set) == stamp) {
+            int victim = chooseSlot(base, patientId, now);
+            Entry current = slots.get(victim);
+            if (slots.compareAndSet(victim, current, fresh)) {
+                if (current != null && current.patientId != patientId && current.expiresAtNanos - now > 0) {
+                    evictions.increment();
+                }
+                // a write that bumped the stamp before the CAS may have scanned the set before the entry was
+                // there; writes after this check see the entry and update or drop it themselves
+                if (stamps.get(set) != stamp) {
+                    slots.compareAndSet(victim, fresh, null);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write-through for a newly stored reading: if the patient is cached and the reading is newer than the
+     * cached one for its component, the cached snapshot is replaced by a copy that includes it.
+     */
+    public void apply(long patientId, String componentName, LatestReading reading) {
+        int set = setOf(patientId);
+        stamps.incrementAndGet(set);
+        int base = set * WAYS;
+        for (int way = 0; way < WAYS; way++) {
+            Entry e;
+            while ((e = slots.get(base + way)) != null && e.patientId == patientId) {
+                LatestReading cached = e.readings.get(componentName);
+                if (cached != null && !reading.isNewerThan(cached)) {
+                    return;
+                }
+                Map<String, LatestReading> updated = new HashMap<>(e.readings);
+                updated.put(componentName, reading);
+                if (slots.compareAndSet(base + way, e, new Entry(patientId, Map.copyOf(updated), e.expiresAtNanos))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public void invalidate(long patientId) {
+        int set = setOf(patientId);
+        stamps.incrementAndGet(set);
+        int base = set * WAYS;
+        for (int way = 0; way < WAYS; way++) {
+            Entry e = slots.get(base + way);
+            if (e != null && e.patientId == patientId) {
+                slots.compareAndSet(base + way, e, null);
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    // same patient, then an empty or expired way, then the way closest to expiry
+    private int chooseSlot(int base, long patientId, long now) {
+        int victim = base;
+        long soonest = Long.MAX_VALUE;
+        for (int way = 0; way < WAYS; way++) {
+            Entry e = slots.get(base + way);
+            if (e == null || e.patientId == patientId || e.expiresAtNanos - now <= 0) {
+                return base + way;
+            }
+            long remaining = e.expiresAtNanos - now;
+            if (remaining < soonest) {
+                soonest = remaining;
+                victim = base + way;
+            }
+        }
+        return victim;
+    }
+
+    private int setOf(long patientId) {
+        long h = patientId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & setMask;
+    }
+}
@@ -0,0 +1,18 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link LatestVitalsCache} ({@code clinicals.cache.latest-vitals.*}).
+ *
+ * @param maxEntries upper bound on cached patients (rounded up to a power of two)
+ * @param ttl        how long an entry is served before it is reloaded from the database
+ */
+@ConfigurationProperties("clinicals.cache.latest-vitals")
+public record LatestVitalsCacheProperties(
+        @DefaultValue("10000") int maxEntries,
+        @DefaultValue("5m") Duration ttl) {
+}
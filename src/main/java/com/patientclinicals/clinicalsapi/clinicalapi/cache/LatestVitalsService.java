@@ -0,0 +1,73 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataModifiedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataSavedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+/**
+ * Serves each patient's latest reading per component from {@link LatestVitalsCache}, loading from the
+ * database on a miss. New readings are written through to cached entries once their transaction commits;
+ * updates and deletes drop the patient's entry so the next request reloads it.
+ */
+@Service
+public class LatestVitalsService {
+
+    private final LatestVitalsCache cache;
+    private final ClinicalDataRepository clinicalDataRepository;
+    private final PatientRepository patientRepository;
+
+    public LatestVitalsService(LatestVitalsCache cache, ClinicalDataRepository clinicalDataRepository,
+                               PatientRepository patientRepository) {
+        this.cache = cache;
+        this.clinicalDataRepository = clinicalDataRepository;
+        this.patientRepository = patientRepository;
+    }
+
+    /**
+     * Latest readings keyed by component name; empty if the patient does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, LatestReading>> findLatest(long patientId) {
+        Map<String, LatestReading> cached = cache.get(patientId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long stamp = cache.stamp(patientId);
+        List<ClinicalData> rows = clinicalDataRepository.findLatestPerComponent(patientId);
+        if (rows.isEmpty() && !patientRepository.existsById(patientId)) {
+            return Optional.empty();
+        }
+        Map<String, LatestReading> latest = new HashMap<>();
+        for (ClinicalData row : rows) {
+            LatestReading reading = LatestReading.of(row);
+            latest.merge(row.getComponentName(), reading, (a, b) -> b.isNewerThan(a) ? b : a);
+        }
+        cache.putIfUnchanged(patientId, latest, stamp);
+        return Optional.of(latest);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaved(ClinicalDataSavedEvent event) {
+        for (ClinicalData reading : event.readings()) {
+            if (reading.getPatient() != null && reading.getPatient().getId() != null) {
+                cache.apply(reading.getPatient().getId(), reading.getComponentName(), LatestReading.of(reading));
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onModified(ClinicalDataModifiedEvent event) {
+        event.patientIds().forEach(cache::invalidate);
+    }
+}
@@ -0,0 +1,89 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongFunction;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single-flight loading of patients by id: while one request loads and serializes a patient, others asking
+ * for the same id wait for that load and are answered with its result instead of querying the database
+ * themselves. Nothing is kept once the load completes, so this only merges requests that overlap in time
+ * (a ward's terminals refreshing together); repeated reads are left to the second-level cache.
+ * <p>
+ * A write calls {@link #forget} once committed, so requests arriving after it start a fresh load rather
+ * than joining one that may have read the row before the write.
+ */
+@Component
+public class PatientReadCoalescer {
+
+    private final boolean enabled;
+    private final ConcurrentMap<Long, CompletableFuture<Optional<SerializedPatient>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter loads;
+    private final Counter shared;
+
+    public PatientReadCoalescer(PatientReadCoalescerProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.loads = Counter.builder("clinicals.coalescing.requests").tag("result", "load").register(meterRegistry);
+        this.shared = Counter.builder("clinicals.coalescing.requests").tag("result", "shared").register(meterRegistry);
+        Gauge.builder("clinicals.coalescing.in.flight", inFlight, ConcurrentMap::size).register(meterRegistry);
+    }
+
+    /**
+     * The patient as produced by {@code loader}, which runs on the calling thread unless a load for the same
+     * id is already in flight, in which case that load's result (or exception) is returned.
+     */
+    public Optional<SerializedPatient> get(long patientId, LongFunction<Optional<SerializedPatient>> loader) {
+        if (!enabled) {
+            return loader.apply(patientId);
+        }
+        CompletableFuture<Optional<SerializedPatient>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<SerializedPatient>> leader = inFlight.putIfAbsent(patientId, load);
+        if (leader != null) {
+            shared.increment();
+            return join(leader);
+        }
+        loads.increment();
+        try {
+            Optional<SerializedPatient> patient = loader.apply(patientId);
+            load.complete(patient);
+            return patient;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(patientId, load);
+        }
+    }
+
+    /**
+     * Detaches the load in flight for the patient, if any; requests already waiting for it still get its result.
+     */
+    public void forget(long patientId) {
+        inFlight.remove(patientId);
+    }
+
+    private static Optional<SerializedPatient> join(CompletableFuture<Optional<SerializedPatient>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            // rethrow the leader's own exception so the caller's error handling sees the same type
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link PatientReadCoalescer} ({@code clinicals.coalescing.*}).
+ *
+ * @param enabled let concurrent reads of the same patient share one database load
+ */
+@ConfigurationProperties("clinicals.coalescing")
+public record PatientReadCoalescerProperties(
+        @DefaultValue("true") boolean enabled) {
+}
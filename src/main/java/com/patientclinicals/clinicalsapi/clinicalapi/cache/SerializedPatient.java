@@ -0,0 +1,8 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+/**
+ * A patient as sent by {@code GET /patients/{id}}: its version (for the ETag) and the JSON body, serialized
+ * once and shared by every request that joined the same load. The array must not be modified.
+ */
+public record SerializedPatient(Long version, byte[] json) {
+}
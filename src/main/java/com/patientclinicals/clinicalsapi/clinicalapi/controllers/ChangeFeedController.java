@@ -0,0 +1,121 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ChangeLogRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.QueryBudget;
+
+/**
+ * Delta sync for clients that keep a local copy of patients and readings. A client takes the current
+ * cursor from {@code GET /changes}, loads the data it needs, then polls {@code GET /changes?since=<cursor>}
+ * and applies each page: UPSERT carries the row's current state, DELETE only its id. A patient's DELETE
+ * also removes all of its readings, which have no entries of their own.
+ */
+@CrossOrigin(origins = "http://localhost:3000") // adjust origin(s) for your frontend
+@RestController
+@RequestMapping("/changes")
+public class ChangeFeedController {
+
+    static final int DEFAULT_PAGE_SIZE = 500;
+    static final int MAX_PAGE_SIZE = 5000;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final PatientRepository patientRepository;
+    private final ClinicalDataRepository clinicalDataRepository;
+    private final ChangeFeedProperties properties;
+
+    public ChangeFeedController(ChangeLogRepository changeLogRepository, PatientRepository patientRepository,
+                                ClinicalDataRepository clinicalDataRepository, ChangeFeedProperties properties) {
+        this.changeLogRepository = changeLogRepository;
+        this.patientRepository = patientRepository;
+        this.clinicalDataRepository = clinicalDataRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Changes after {@code since}, at most {@code limit} log entries' worth; several changes to the same row
+     * within the page are folded into its latest one. Without {@code since}, only the current cursor. Both stop
+     * below the first entry younger than the settle time, even when later ones have settled.
+     */
+    // the log page, then the patients and readings it upserts
+    @QueryBudget(3)
+    @GetMapping
+    public ResponseEntity<ChangeFeedPage> changes(@RequestParam(required = false) Long since,
+                                                  @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        Timestamp settled = new Timestamp(System.currentTimeMillis() - properties.settleTime().toMillis());
+        if (since == null) {
+            // just below the first unsettled entry, so nothing under the cursor can still change
+            long head = changeLogRepository.findFirstUnsettledId(settled)
+                    .map(id -> id - 1)
+                    .orElseGet(() -> changeLogRepository.findFirstByOrderByIdDesc().map(ChangeLogEntry::getId).orElse(0L));
+            return ResponseEntity.ok(new ChangeFeedPage(head, false, List.of()));
+        }
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<ChangeLogEntry> page = changeLogRepository.findByIdGreaterThanOrderByIdAsc(since, Limit.of(pageSize));
+        // only the settled prefix: skipping an unsettled entry would move the cursor past it for good
+        List<ChangeLogEntry> entries = page.stream()
+                .takeWhile(entry -> !entry.getRecordedAt().after(settled))
+                .toList();
+        if (entries.isEmpty()) {
+            return ResponseEntity.ok(new ChangeFeedPage(since, false, List.of()));
+        }
+
+        // latest entry per row, in the order of those latest entries
+        Map<String, ChangeLogEntry> latest = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : entries) {
+            String key = entry.getType() + ":" + entry.getEntityId();
+            latest.remove(key);
+            latest.put(key, entry);
+        }
+        Map<Long, Patient> patients = load(latest.values(), ChangeLogEntry.Type.PATIENT, patientRepository::findAllById,
+                Patient::getId);
+        Map<Long, ClinicalData> readings = load(latest.values(), ChangeLogEntry.Type.CLINICAL_DATA,
+                clinicalDataRepository::findAllById, ClinicalData::getId);
+
+        List<ChangeFeedPage.Change> changes = new ArrayList<>(latest.size());
+        for (ChangeLogEntry entry : latest.values()) {
+            Object data = null;
+            if (entry.getOperation() == ChangeLogEntry.Operation.UPSERT) {
+                data = (entry.getType() == ChangeLogEntry.Type.PATIENT ? patients : readings).get(entry.getEntityId());
+                if (data == null) {
+                    // deleted since; its DELETE entry is further on
+                    continue;
+                }
+            }
+            changes.add(new ChangeFeedPage.Change(entry.getId(), entry.getType(), entry.getEntityId(),
+                    entry.getPatientId(), entry.getOperation(), data));
+        }
+        long cursor = entries.get(entries.size() - 1).getId();
+        return ResponseEntity.ok(new ChangeFeedPage(cursor, entries.size() == pageSize, changes));
+    }
+
+    // current state of the upserted rows of one type, in one query (none when the page has no such rows)
+    private static <T> Map<Long, T> load(Iterable<ChangeLogEntry> entries, ChangeLogEntry.Type type,
+                                         Function<List<Long>, List<T>> findAllById, Function<T, Long> id) {
+        List<Long> ids = new ArrayList<>();
+        for (ChangeLogEntry entry : entries) {
+            if (entry.getType() == type && entry.getOperation() == ChangeLogEntry.Operation.UPSERT) {
+                ids.add(entry.getEntityId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return findAllById.apply(ids).stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+}
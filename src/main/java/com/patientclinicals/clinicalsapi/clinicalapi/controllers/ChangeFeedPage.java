@@ -0,0 +1,30 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry;
+
+/**
+ * Response body for {@code GET /changes}: the changes after the requested cursor, oldest first, and the
+ * cursor to pass as {@code since} next time. {@code hasMore} means the page was full and more may follow.
+ */
+public record ChangeFeedPage(
+        long cursor,
+        boolean hasMore,
+        List<Change> changes) {
+
+    /**
+     * The latest change to one patient or reading within the page. {@code data} is its current state for
+     * UPSERT and absent for DELETE.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Change(
+            long cursor,
+            ChangeLogEntry.Type type,
+            Long id,
+            Long patientId,
+            ChangeLogEntry.Operation operation,
+            Object data) {
+    }
+}
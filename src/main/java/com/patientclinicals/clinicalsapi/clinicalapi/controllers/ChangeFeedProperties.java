@@ -0,0 +1,17 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@code GET /changes} ({@code clinicals.changes.*}).
+ *
+ * @param settleTime how old an entry must be before it is served; longer than the slowest write transaction,
+ *                   so no entry with a lower cursor can still commit after a client has moved past it
+ */
+@ConfigurationProperties("clinicals.changes")
+public record ChangeFeedProperties(
+        @DefaultValue("5s") Duration settleTime) {
+}
@@ -2,43 +2,91 @@ package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataModifiedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataSavedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.ClinicalDataIngestService;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.ClinicalDataSpool;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.WriteBehindIngestBuffer;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.ETags;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.MergePatch;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.QueryBudget;
 
-@CrossOrigin(origins = "http://localhost:3000") // adjust origin(s) for your frontend
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = HttpHeaders.ETAG) // adjust origin(s) for your frontend
 @RestController
 @RequestMapping("/clinicaldata")
 public class ClinicalDataController {
 
+    static final int MAX_BATCH_SIZE = 5000;
+    // component_name and component_value are VARCHAR(255)
+    static final int MAX_FIELD_LENGTH = 255;
+    private static final String INVALID_READING = "patientId, componentName and componentValue are required, "
+            + "componentName and componentValue at most " + MAX_FIELD_LENGTH + " characters";
+
     private final ClinicalDataRepository clinicalDataRepository;
     private final PatientRepository patientRepository;
+    private final ClinicalDataIngestService ingestService;
+    private final WriteBehindIngestBuffer writeBehindBuffer;
+    private final ClinicalDataSpool spool;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
 
-    public ClinicalDataController(ClinicalDataRepository clinicalDataRepository, PatientRepository patientRepository) {
+    public ClinicalDataController(ClinicalDataRepository clinicalDataRepository, PatientRepository patientRepository,
+                                  ClinicalDataIngestService ingestService, WriteBehindIngestBuffer writeBehindBuffer,
+                                  ClinicalDataSpool spool, ApplicationEventPublisher eventPublisher,
+                                  ObjectMapper objectMapper) {
         this.clinicalDataRepository = clinicalDataRepository;
         this.patientRepository = patientRepository;
+        this.ingestService = ingestService;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.spool = spool;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
     }
 
+    @QueryBudget(1)
     @GetMapping
     public List<ClinicalData> list() {
         return clinicalDataRepository.findAll();
     }
 
+    // strong ETag from the reading's version; a matching If-None-Match is answered 304 from a version-only query
+    @QueryBudget(2)
     @GetMapping("/{id}")
-    public ResponseEntity<ClinicalData> getById(@PathVariable Long id) {
+    public ResponseEntity<ClinicalData> getById(@PathVariable Long id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = clinicalDataRepository.findVersionById(id);
+            if (version.isPresent() && ETags.matchesIfNoneMatch(ifNoneMatch, version.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(version.get())).build();
+            }
+        }
         return clinicalDataRepository.findById(id)
-                .map(ResponseEntity::ok)
+                .map(c -> ResponseEntity.ok().eTag(ETags.of(c.getVersion())).body(c))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // the insert and its change_log entry
+    @QueryBudget(2)
     @PostMapping
     public ResponseEntity<ClinicalData> create(@RequestBody ClinicalData clinicalData) {
-        ClinicalData saved = clinicalDataRepository.save(clinicalData);
+        ClinicalData saved = clinicalDataRepository.create(clinicalData);
+        eventPublisher.publishEvent(new ClinicalDataSavedEvent(List.of(saved)));
         URI location = ServletUriComponentsBuilder.fromCurrentRequest()
                 .path("/{id}")
                 .buildAndExpand(saved.getId())
@@ -46,35 +94,180 @@ public class ClinicalDataController {
         return ResponseEntity.created(location).body(saved);
     }
 
+    /**
+     * Replaces the reading's fields with one targeted UPDATE (no load or merge first), then answers with the
+     * stored reading and its ETag, read back after the write; the reading stays with its patient. With
+     * {@code If-Match} the UPDATE only applies to that version (412 otherwise).
+     */
+    // update and its change_log entry, the patient id for the cache invalidation, then the read-back
+    @QueryBudget(4)
     @PutMapping("/{id}")
-    public ResponseEntity<ClinicalData> update(@PathVariable Long id, @RequestBody ClinicalData clinicalData) {
-        if (!clinicalDataRepository.existsById(id)) {
+    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody ClinicalData clinicalData,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (clinicalData.getComponentName() == null || clinicalData.getComponentValue() == null
+                || clinicalData.getMeasuredDateTime() == null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "componentName, componentValue and measuredDateTime are required"));
+        }
+        ResponseEntity<?> failed = updateFields(id, ifMatch, new ClinicalDataPatch(clinicalData.getComponentName(),
+                clinicalData.getComponentValue(), clinicalData.getMeasuredDateTime()));
+        if (failed != null) {
+            return failed;
+        }
+        // the row as stored, so the body and ETag agree even when another write landed in between
+        return clinicalDataRepository.findById(id)
+                .<ResponseEntity<?>>map(c -> ResponseEntity.ok().eTag(ETags.of(c.getVersion())).body(c))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * JSON Merge Patch: the members present replace the stored values in one targeted UPDATE; 204, with the
+     * new ETag when {@code If-Match} named the version. Reading fields are all required, so none can be removed.
+     * An empty patch changes nothing: no UPDATE, no new version and no change_log entry.
+     */
+    @QueryBudget(3)
+    @PatchMapping(value = "/{id}", consumes = MergePatch.MEDIA_TYPE)
+    public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody JsonNode patch,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ClinicalDataPatch fields;
+        try {
+            fields = MergePatch.read(objectMapper, patch, ClinicalDataPatch.class);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (patch.isEmpty()) {
+            return unchanged(id, ifMatch);
+        }
+        ResponseEntity<?> failed = updateFields(id, ifMatch, fields);
+        if (failed != null) {
+            return failed;
+        }
+        Long version = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        return ResponseEntity.noContent().eTag(version == null ? null : ETags.of(version + 1)).build();
+    }
+
+    // one UPDATE, null when it applied; when it matches no row, a second query tells a stale If-Match (412)
+    // from a missing reading
+    private ResponseEntity<?> updateFields(Long id, String ifMatch, ClinicalDataPatch fields) {
+        Long version = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        int updated = clinicalDataRepository.updateById(id, version, fields.componentName(), fields.componentValue(),
+                fields.measuredDateTime());
+        if (updated == 0) {
+            if (ifMatch != null && clinicalDataRepository.findVersionById(id).isPresent()) {
+                return modifiedConcurrently(HttpStatus.PRECONDITION_FAILED);
+            }
             return ResponseEntity.notFound().build();
         }
-        clinicalData.setId(id);
-        ClinicalData saved = clinicalDataRepository.save(clinicalData);
-        return ResponseEntity.ok(saved);
+        clinicalDataRepository.findPatientIdById(id)
+                .ifPresent(patientId -> eventPublisher.publishEvent(ClinicalDataModifiedEvent.of(patientId)));
+        return null;
     }
 
+    // the If-Match check an UPDATE would have made, against a version-only query
+    private ResponseEntity<?> unchanged(Long id, String ifMatch) {
+        Optional<Long> version = clinicalDataRepository.findVersionById(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long required = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        if (required != null && !required.equals(version.get())) {
+            return modifiedConcurrently(HttpStatus.PRECONDITION_FAILED);
+        }
+        return ResponseEntity.noContent().eTag(ETags.of(version.get())).build();
+    }
+
+    // patient id for the cache invalidation, then the change_log entry and the delete; the row count catches
+    // a concurrent delete
+    @QueryBudget(3)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!clinicalDataRepository.existsById(id)) {
+        Optional<Long> patientId = clinicalDataRepository.findPatientIdById(id);
+        if (patientId.isEmpty() || clinicalDataRepository.removeById(id) == 0) {
             return ResponseEntity.notFound().build();
         }
-        clinicalDataRepository.deleteById(id);
+        eventPublisher.publishEvent(ClinicalDataModifiedEvent.of(patientId.get()));
         return ResponseEntity.noContent().build();
     }
 
     //method that receives patient id, clinical data and sabes it to the database
+    //with write-behind enabled the reading is only queued here (202) and written by the flusher in batches
+    @QueryBudget(3)
     @PostMapping("/clinicals")
-    public ClinicalData saveClinicalData(@RequestBody ClinicalDataRequest request) {
-        
+    public ResponseEntity<?> saveClinicalData(@RequestBody ClinicalDataRequest request) {
+        // checked up front: a queued or spooled reading that the insert rejects would take its batch down with it
+        if (isInvalid(request)) {
+            return ResponseEntity.badRequest().body(Map.of("error", INVALID_READING));
+        }
         ClinicalData clinicalData = new ClinicalData();
         clinicalData.setComponentName(request.getComponentName());
         clinicalData.setComponentValue(request.getComponentValue());
+        clinicalData.setMeasuredDateTime(request.getMeasuredDateTime());
+
+        if (writeBehindBuffer.isEnabled()) {
+            if (!writeBehindBuffer.offer(request)) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build();
+            }
+            return ResponseEntity.accepted().body(clinicalData);
+        }
+
+        try {
+            patientRepository.findById(request.getPatientId()).ifPresent(clinicalData::setPatient);
 
-        patientRepository.findById(request.getPatientId()).ifPresent(clinicalData::setPatient);
+            ClinicalData saved = clinicalDataRepository.create(clinicalData);
+            eventPublisher.publishEvent(new ClinicalDataSavedEvent(List.of(saved)));
+            return ResponseEntity.ok(saved);
+        } catch (RuntimeException e) {
+            if (!spool.isEnabled() || !ClinicalDataSpool.isDatabaseUnavailable(e)) {
+                throw e;
+            }
+            // database unreachable: keep the reading on local disk, it is replayed once the database is back
+            spool.append(request);
+            return ResponseEntity.accepted().body(clinicalData);
+        }
+    }
+
+    /**
+     * Bulk variant of {@link #saveClinicalData}: all patient ids are validated with one query and the
+     * readings are written with JDBC batch inserts. The batch is all-or-nothing.
+     */
+    // patient id check, then one JDBC batch and one change_log insert per 50 readings (hibernate.jdbc.batch_size)
+    @QueryBudget(1 + 2 * MAX_BATCH_SIZE / 50)
+    @PostMapping("/clinicals/batch")
+    public ResponseEntity<Map<String, Object>> saveClinicalDataBatch(@RequestBody List<ClinicalDataRequest> requests) {
+        if (requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Batch must contain between 1 and " + MAX_BATCH_SIZE + " readings"));
+        }
+        if (requests.stream().anyMatch(ClinicalDataController::isInvalid)) {
+            return ResponseEntity.badRequest().body(Map.of("error", INVALID_READING));
+        }
+        try {
+            Set<Long> unknown = ingestService.findUnknownPatientIds(requests);
+            if (!unknown.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Unknown patient ids", "details", unknown));
+            }
+            List<ClinicalData> saved = ingestService.insertAll(requests);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("inserted", saved.size()));
+        } catch (RuntimeException e) {
+            if (!spool.isEnabled() || !ClinicalDataSpool.isDatabaseUnavailable(e)) {
+                throw e;
+            }
+            spool.appendAll(requests);
+            return ResponseEntity.accepted().body(Map.of("spooled", requests.size()));
+        }
+    }
+
+    private static boolean isInvalid(ClinicalDataRequest request) {
+        return request.getPatientId() == null || request.getComponentName() == null || request.getComponentValue() == null
+                || request.getComponentName().length() > MAX_FIELD_LENGTH
+                || request.getComponentValue().length() > MAX_FIELD_LENGTH;
+    }
 
-        return clinicalDataRepository.save(clinicalData);
+    private static ResponseEntity<Map<String, String>> modifiedConcurrently(HttpStatus status) {
+        return ResponseEntity.status(status)
+                .body(Map.of("error", "Reading was modified by another request; fetch it again and retry"));
     }
-}
\ No newline at end of file
+}
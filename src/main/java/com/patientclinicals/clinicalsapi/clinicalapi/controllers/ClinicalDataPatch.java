@@ -0,0 +1,12 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.sql.Timestamp;
+
+/**
+ * Patchable fields of a reading ({@code PATCH /clinicaldata/{id}}); {@code null} leaves the stored value unchanged.
+ */
+public record ClinicalDataPatch(
+        String componentName,
+        String componentValue,
+        Timestamp measuredDateTime) {
+}
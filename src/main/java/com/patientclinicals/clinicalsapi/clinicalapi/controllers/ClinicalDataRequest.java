@@ -1,9 +1,13 @@
 package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
 
+import java.sql.Timestamp;
+
 public class ClinicalDataRequest {
     private String componentName;
     private String componentValue;
     private Long patientId;
+    // optional; when absent the reading is stamped with the time it is stored
+    private Timestamp measuredDateTime;
 
     public String getComponentName() {
         return componentName;
@@ -27,4 +31,12 @@ public class ClinicalDataRequest {
     public void setPatientId(Long patientId) {
         this.patientId = patientId;
     }
+
+    public Timestamp getMeasuredDateTime() {
+        return measuredDateTime;
+    }
+
+    public void setMeasuredDateTime(Timestamp measuredDateTime) {
+        this.measuredDateTime = measuredDateTime;
+    }
 }
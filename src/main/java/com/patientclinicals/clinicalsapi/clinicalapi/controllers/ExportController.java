@@ -0,0 +1,114 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.export.ExportService;
+import com.patientclinicals.clinicalsapi.clinicalapi.export.ExportStatus;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.QueryBudget;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Bulk extracts as gzip-compressed CSV. {@code POST /exports} starts an export in the background and answers
+ * 202 with its {@code Location}; once that reports COMPLETED, {@code GET /exports/{id}/file} downloads the file.
+ */
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = HttpHeaders.LOCATION) // adjust origin(s) for your frontend
+@RestController
+@RequestMapping("/exports")
+public class ExportController {
+
+    // Tomcat request attributes for sendfile (NIO connector, useSendfile=true by default)
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Exports {@code type=patients} (all of them) or {@code type=clinicaldata}, the readings measured in
+     * {@code [from, to)}; either bound may be left out.
+     */
+    @QueryBudget(0)
+    @PostMapping
+    public ResponseEntity<?> create(@RequestParam String type,
+                                    @RequestParam(required = false) Instant from,
+                                    @RequestParam(required = false) Instant to) {
+        ExportStatus status;
+        if (type.equals("patients") && from == null && to == null) {
+            status = exportService.submit(ExportStatus.Type.PATIENTS, null, null);
+        } else if (type.equals("clinicaldata")) {
+            Instant lower = from == null ? Instant.EPOCH : from;
+            Instant upper = to == null ? PatientClinicalDataController.END_OF_TIME : to;
+            if (!lower.isBefore(upper)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "from must be before to"));
+            }
+            status = exportService.submit(ExportStatus.Type.CLINICAL_DATA, lower, upper);
+        } else {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "type must be patients or clinicaldata; from and to only apply to clinicaldata"));
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQuery(null)
+                .path("/{id}")
+                .buildAndExpand(status.id())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+
+    @QueryBudget(0)
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportStatus> getStatus(@PathVariable String id) {
+        return exportService.status(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * The finished file. Under Tomcat it is handed to sendfile, so the kernel copies it to the socket without
+     * passing through the JVM; elsewhere it is copied through the response stream.
+     */
+    @QueryBudget(0)
+    @GetMapping("/{id}/file")
+    public void download(@PathVariable String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<Path> file = exportService.file(id);
+        if (file.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Path path = file.get();
+        long length = Files.size(path);
+        response.setContentType("application/gzip");
+        response.setContentLengthLong(length);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(path.getFileName().toString())
+                .build()
+                .toString());
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return;
+        }
+        Files.copy(path, response.getOutputStream());
+    }
+}
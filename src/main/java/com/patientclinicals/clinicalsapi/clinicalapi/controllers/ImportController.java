@@ -0,0 +1,99 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.importer.ImportService;
+import com.patientclinicals.clinicalsapi.clinicalapi.importer.ImportStatus;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.QueryBudget;
+
+/**
+ * Bulk loads of readings. {@code POST /imports} takes a CSV ({@code text/csv}) or NDJSON
+ * ({@code application/x-ndjson}) body, imports it in the background and answers 202 with its {@code Location};
+ * lines that could not be imported are listed by {@code GET /imports/{id}/rejected}.
+ */
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = HttpHeaders.LOCATION) // adjust origin(s) for your frontend
+@RestController
+@RequestMapping("/imports")
+public class ImportController {
+
+    static final String TEXT_CSV = "text/csv";
+    static final String NDJSON = "application/x-ndjson";
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    // the body is streamed to disk as it arrives; the database is only used by the background import
+    @QueryBudget(0)
+    @PostMapping(consumes = {TEXT_CSV, NDJSON})
+    public ResponseEntity<?> create(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body)
+            throws IOException {
+        ImportStatus.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? ImportStatus.Format.CSV
+                : ImportStatus.Format.NDJSON;
+        ImportStatus status;
+        try {
+            status = importService.submit(format, body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(status.id())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+
+    @QueryBudget(0)
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportStatus> getStatus(@PathVariable String id) {
+        return importService.status(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * The lines rejected so far, as CSV: line number, reason, and the line as uploaded.
+     */
+    @QueryBudget(0)
+    @GetMapping(value = "/{id}/rejected", produces = TEXT_CSV)
+    public ResponseEntity<Resource> getRejected(@PathVariable String id) {
+        return importService.rejectedRows(id)
+                .<ResponseEntity<Resource>>map(path -> ResponseEntity.ok(new FileSystemResource(path)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Continues a failed import from the last chunk it stored.
+     */
+    @QueryBudget(0)
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resume(@PathVariable String id) {
+        Optional<ImportStatus> current = importService.status(id);
+        if (current.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (current.get().state() != ImportStatus.State.FAILED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Only failed imports can be resumed", "state", current.get().state()));
+        }
+        return importService.resume(id)
+                .<ResponseEntity<?>>map(status -> ResponseEntity.accepted().body(status))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,167 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.net.URI;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.analytics.ReadingAggregationService;
+import com.patientclinicals.clinicalsapi.clinicalapi.analytics.ReadingBucket;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.LatestReading;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.LatestVitalsService;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.stream.ReadingBroadcaster;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.QueryBudget;
+
+/**
+ * Read endpoints for the readings of a single patient, including a live stream of new ones.
+ */
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = HttpHeaders.LINK) // adjust origin(s) for your frontend
+@RestController
+@RequestMapping("/patients/{patientId}/clinicaldata")
+public class PatientClinicalDataController {
+
+    // upper bound of DATETIME in MySQL; used when no `to` is given
+    static final Instant END_OF_TIME = Instant.parse("9999-12-31T00:00:00Z");
+    static final long MAX_BUCKETS = 10_000;
+
+    private final LatestVitalsService latestVitalsService;
+    private final ReadingAggregationService aggregationService;
+    private final ClinicalDataRepository clinicalDataRepository;
+    private final PatientRepository patientRepository;
+    private final ReadingBroadcaster broadcaster;
+
+    public PatientClinicalDataController(LatestVitalsService latestVitalsService,
+                                         ReadingAggregationService aggregationService,
+                                         ClinicalDataRepository clinicalDataRepository,
+                                         PatientRepository patientRepository, ReadingBroadcaster broadcaster) {
+        this.latestVitalsService = latestVitalsService;
+        this.aggregationService = aggregationService;
+        this.clinicalDataRepository = clinicalDataRepository;
+        this.patientRepository = patientRepository;
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Readings measured in {@code [from, to)}, optionally for one component, in measurement-time order.
+     * Pages are keyset-based: when a page is full, {@code Link: <...>; rel="next"} carries the
+     * {@code afterTime}/{@code afterId} cursor of its last reading, so every page costs the same
+     * index range scan however deep into the history it is.
+     */
+    @QueryBudget(2)
+    @GetMapping
+    public ResponseEntity<List<ClinicalData>> list(@PathVariable Long patientId,
+                                                   @RequestParam(required = false) String component,
+                                                   @RequestParam(required = false) Instant from,
+                                                   @RequestParam(required = false) Instant to,
+                                                   @RequestParam(required = false) Instant afterTime,
+                                                   @RequestParam(required = false) Long afterId,
+                                                   @RequestParam(defaultValue = "" + PatientController.DEFAULT_PAGE_SIZE) int limit) {
+        Instant lower = from == null ? Instant.EPOCH : from;
+        Instant upper = to == null ? END_OF_TIME : to;
+        if (!lower.isBefore(upper) || (afterTime == null) != (afterId == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // the cursor only moves the lower bound forward; (from, 0) selects everything measured at `from`
+        long cursorId = 0L;
+        if (afterTime != null && !afterTime.isBefore(lower)) {
+            lower = afterTime;
+            cursorId = afterId;
+        }
+        int pageSize = Math.clamp(limit, 1, PatientController.MAX_PAGE_SIZE);
+        List<ClinicalData> page = component == null
+                ? clinicalDataRepository.findRange(patientId, Timestamp.from(lower), cursorId,
+                        Timestamp.from(upper), Limit.of(pageSize))
+                : clinicalDataRepository.findComponentRange(patientId, component, Timestamp.from(lower), cursorId,
+                        Timestamp.from(upper), Limit.of(pageSize));
+        if (page.isEmpty() && afterTime == null && !patientRepository.existsById(patientId)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (page.size() < pageSize) {
+            return ResponseEntity.ok(page);
+        }
+        ClinicalData last = page.get(page.size() - 1);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, nextLink(last.getMeasuredDateTime().toInstant(), last.getId(), pageSize))
+                .body(page);
+    }
+
+    /**
+     * Downsampled series for charts: one component's readings in {@code [from, to)} grouped into buckets
+     * of {@code interval} (ISO-8601 whole seconds, e.g. {@code PT5M}) with count/min/max/avg/last each. Empty buckets
+     * are omitted, so the payload grows with the number of buckets, not readings.
+     */
+    // grouped query, then a last-value lookup per 1000 non-empty buckets (MAX_BUCKETS / 1000)
+    @QueryBudget(11)
+    @GetMapping("/aggregate")
+    public ResponseEntity<List<ReadingBucket>> aggregate(@PathVariable Long patientId,
+                                                         @RequestParam String component,
+                                                         @RequestParam Instant from,
+                                                         @RequestParam Instant to,
+                                                         @RequestParam Duration interval) {
+        if (!from.isBefore(to) || interval.toSeconds() < 1 || interval.toNanosPart() != 0
+                || Duration.between(from, to).dividedBy(interval) >= MAX_BUCKETS) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ReadingBucket> buckets = aggregationService.aggregate(patientId, component, from, to, interval);
+        if (buckets.isEmpty() && !patientRepository.existsById(patientId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(buckets);
+    }
+
+    /**
+     * Most recent reading per component name, e.g. {@code {"hr": {"id": 7, "componentValue": "72", ...}}}.
+     * Served from memory on a cache hit.
+     */
+    @QueryBudget(2)
+    @GetMapping("/latest")
+    public ResponseEntity<Map<String, LatestReading>> latest(@PathVariable Long patientId) {
+        return latestVitalsService.findLatest(patientId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-Sent Events stream of the patient's readings as they are stored, optionally only those of one
+     * {@code component}: one {@code reading} event each, with the reading id as the event id. Replaces polling
+     * for new readings; a client that falls behind gets the latest reading per component rather than all of
+     * them. 503 when {@code clinicals.stream.max-subscribers} streams are open.
+     */
+    @QueryBudget(1)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable Long patientId,
+                                             @RequestParam(required = false) String component) {
+        if (!patientRepository.existsById(patientId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return broadcaster.subscribe(patientId, component)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+
+    private static String nextLink(Instant afterTime, Long afterId, int pageSize) {
+        URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("afterTime", afterTime)
+                .replaceQueryParam("afterId", afterId)
+                .replaceQueryParam("limit", pageSize)
+                .build()
+                .toUri();
+        return "<" + next + ">; rel=\"next\"";
+    }
+}
@@ -2,49 +2,164 @@ package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.PatientReadCoalescer;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.SerializedPatient;
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataModifiedEvent;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.PatientSummary;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.purge.PatientPurgeService;
+import com.patientclinicals.clinicalsapi.clinicalapi.purge.PurgeStatus;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.ETags;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.MergePatch;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.QueryBudget;
 
-@CrossOrigin(origins = "http://localhost:3000") // adjust origin(s) for your frontend
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletResponse;
+
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = {HttpHeaders.LINK, HttpHeaders.ETAG}) // adjust origin(s) for your frontend
 @RestController
 @RequestMapping("/patients")
 public class PatientController {
 
     private static final Logger logger = LoggerFactory.getLogger(PatientController.class);
 
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final String INCLUDE_CLINICAL_DATA = "clinicalData";
+
     private final PatientRepository patientRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PatientPurgeService purgeService;
+    private final PatientReadCoalescer readCoalescer;
 
-    public PatientController(PatientRepository patientRepository) {
+    public PatientController(PatientRepository patientRepository, EntityManager entityManager, ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher, PatientPurgeService purgeService,
+                             PatientReadCoalescer readCoalescer) {
         this.patientRepository = patientRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.purgeService = purgeService;
+        this.readCoalescer = readCoalescer;
     }
 
+    /**
+     * Keyset-paginated listing. Returns at most {@code limit} patients with an id greater than
+     * {@code after}; when the page is full a {@code Link: <...>; rel="next"} header points at the next page.
+     */
+    @QueryBudget(1)
     @GetMapping
-    public List<Patient> list() {
-        logger.debug("Listing all patients");
-        List<Patient> list = patientRepository.findAll();
-        logger.info("Returned {} patients", list.size());
-        return list;
+    public ResponseEntity<List<Patient>> list(@RequestParam(required = false) Long after,
+                                              @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        logger.debug("Listing patients after={} limit={}", after, pageSize);
+        List<Patient> page = patientRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize));
+        logger.debug("Returned {} patients", page.size());
+        if (page.size() < pageSize) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, nextLink(page.get(page.size() - 1).getId(), pageSize))
+                .body(page);
+    }
+
+    /**
+     * Patients with the given last name (case-insensitive), ordered by first name. Repeated searches are
+     * answered from the query cache until a patient row changes.
+     */
+    @QueryBudget(1)
+    @GetMapping(params = "lastName")
+    public List<Patient> searchByLastName(@RequestParam String lastName,
+                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        logger.debug("Searching patients lastName={}", lastName);
+        return patientRepository.findByLastNameIgnoreCaseOrderByFirstNameAscIdAsc(lastName,
+                Limit.of(Math.clamp(limit, 1, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Streams every patient as newline-delimited JSON straight from a database cursor.
+     * Each row is detached once written so the persistence context (and the heap) stays flat.
+     */
+    @QueryBudget(1)
+    @GetMapping(produces = APPLICATION_NDJSON)
+    @Transactional(readOnly = true)
+    public void stream(HttpServletResponse response) throws IOException {
+        logger.debug("Streaming all patients as NDJSON");
+        response.setContentType(APPLICATION_NDJSON);
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(Patient.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<Patient> patients = patientRepository.streamAllByOrderByIdAsc()) {
+            for (Patient patient : (Iterable<Patient>) patients::iterator) {
+                writer.writeValue(out, patient);
+                out.write('\n');
+                entityManager.detach(patient);
+                count++;
+            }
+        }
+        out.flush();
+        logger.debug("Streamed {} patients", count);
     }
 
+    /**
+     * The response carries the patient's version as a strong ETag. A request with a matching
+     * {@code If-None-Match} is answered 304 from a version-only query, without loading the patient.
+     * Concurrent requests for the same patient share one load and one serialized body ({@link PatientReadCoalescer}).
+     */
+    // version lookup, then the patient when the client's copy is stale
+    @QueryBudget(2)
     @GetMapping("/{id}")
-    public ResponseEntity<Patient> getById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getById(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("Get patient by id={}", id);
-        return patientRepository.findById(id)
+        if (ifNoneMatch != null) {
+            Optional<Long> version = patientRepository.findVersionById(id);
+            if (version.isPresent() && ETags.matchesIfNoneMatch(ifNoneMatch, version.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(version.get())).build();
+            }
+        }
+        return readCoalescer.get(id, this::loadSerialized)
                 .map(p -> {
-                    logger.info("Patient {} found", id);
-                    return ResponseEntity.ok(p);
+                    logger.debug("Patient {} found", id);
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .eTag(ETags.of(p.version()))
+                            .body(p.json());
                 })
                 .orElseGet(() -> {
                     logger.warn("Patient {} not found", id);
@@ -52,10 +167,65 @@ public class PatientController {
                 });
     }
 
+    private Optional<SerializedPatient> loadSerialized(long id) {
+        return patientRepository.findById(id).map(p -> {
+            try {
+                return new SerializedPatient(p.getVersion(), objectMapper.writeValueAsBytes(p));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #getById(Long, String)} but with an explicit fetch plan; currently the only supported
+     * include is {@code clinicalData}, which loads the reading history in the same select.
+     */
+    @QueryBudget(1)
+    @GetMapping(value = "/{id}", params = "include")
+    public ResponseEntity<PatientDetails> getByIdWithIncludes(@PathVariable Long id, @RequestParam List<String> include) {
+        if (!include.stream().allMatch(INCLUDE_CLINICAL_DATA::equals)) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.debug("Get patient by id={} include={}", id, include);
+        return patientRepository.findWithClinicalDataById(id)
+                .map(p -> ResponseEntity.ok(PatientDetails.from(p)))
+                .orElseGet(() -> {
+                    logger.warn("Patient {} not found", id);
+                    return ResponseEntity.notFound().build();
+                });
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<PatientSummary> getSummary(@PathVariable Long id) {
+        return patientRepository.findSummaryById(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Keyset-paginated summaries (id, names, age, reading count, latest reading time), one grouped query per page.
+     */
+    @QueryBudget(1)
+    @GetMapping("/summaries")
+    public ResponseEntity<List<PatientSummary>> listSummaries(@RequestParam(required = false) Long after,
+                                                              @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<PatientSummary> page = patientRepository.findSummariesAfter(after == null ? 0L : after, Limit.of(pageSize));
+        if (page.size() < pageSize) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, nextLink(page.get(page.size() - 1).id(), pageSize))
+                .body(page);
+    }
+
+    // the insert and its change_log entry
+    @QueryBudget(2)
     @PostMapping
     public ResponseEntity<Patient> create(@RequestBody Patient patient) {
-        logger.info("Creating patient: {}", patient);
-        Patient saved = patientRepository.save(patient);
+        Patient saved = patientRepository.create(patient);
         logger.info("Created patient id={}", saved.getId());
         URI location = ServletUriComponentsBuilder.fromCurrentRequest()
                 .path("/{id}")
@@ -64,25 +234,128 @@ public class PatientController {
         return ResponseEntity.created(location).body(saved);
     }
 
+    /**
+     * Replaces the patient's fields with one targeted UPDATE (no load or merge first), then answers with the
+     * stored patient and its ETag, read back after the write. With {@code If-Match} the UPDATE only applies
+     * to that version (412 otherwise).
+     */
+    // the UPDATE and its change_log entry, then the read-back; a version lookup instead when If-Match failed
+    @QueryBudget(3)
     @PutMapping("/{id}")
-    public ResponseEntity<Patient> update(@PathVariable Long id, @RequestBody Patient patient) {
-        if (!patientRepository.existsById(id)) {
+    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody Patient patient,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (patient.getFirstName() == null || patient.getLastName() == null || patient.getAge() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "firstName, lastName and age are required"));
+        }
+        ResponseEntity<?> failed = updateFields(id, ifMatch,
+                new PatientPatch(patient.getFirstName(), patient.getLastName(), patient.getAge()));
+        if (failed != null) {
+            return failed;
+        }
+        // the row as stored, so the body and ETag agree even when another write landed in between
+        return patientRepository.findById(id)
+                .<ResponseEntity<?>>map(p -> ResponseEntity.ok().eTag(ETags.of(p.getVersion())).body(p))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * JSON Merge Patch: the members present replace the stored values in one targeted UPDATE; 204, with the
+     * new ETag when {@code If-Match} named the version. Patient fields are all required, so none can be removed.
+     * An empty patch changes nothing: no UPDATE, no new version and no change_log entry.
+     */
+    @QueryBudget(2)
+    @PatchMapping(value = "/{id}", consumes = MergePatch.MEDIA_TYPE)
+    public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody JsonNode patch,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        PatientPatch fields;
+        try {
+            fields = MergePatch.read(objectMapper, patch, PatientPatch.class);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (patch.isEmpty()) {
+            return unchanged(id, ifMatch);
+        }
+        ResponseEntity<?> failed = updateFields(id, ifMatch, fields);
+        if (failed != null) {
+            return failed;
+        }
+        Long version = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        return ResponseEntity.noContent().eTag(version == null ? null : ETags.of(version + 1)).build();
+    }
+
+    // one UPDATE, null when it applied; when it matches no row, a second query tells a stale If-Match (412)
+    // from a missing patient
+    private ResponseEntity<?> updateFields(Long id, String ifMatch, PatientPatch fields) {
+        Long version = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        int updated = patientRepository.updateById(id, version, fields.firstName(), fields.lastName(), fields.age());
+        if (updated == 0) {
+            if (ifMatch != null && patientRepository.findVersionById(id).isPresent()) {
+                return modifiedConcurrently(HttpStatus.PRECONDITION_FAILED);
+            }
             return ResponseEntity.notFound().build();
         }
-        patient.setId(id);
-        Patient saved = patientRepository.save(patient);
-        return ResponseEntity.ok(saved);
+        readCoalescer.forget(id);
+        return null;
     }
 
+    // the If-Match check an UPDATE would have made, against a version-only query
+    private ResponseEntity<?> unchanged(Long id, String ifMatch) {
+        Optional<Long> version = patientRepository.findVersionById(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long required = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        if (required != null && !required.equals(version.get())) {
+            return modifiedConcurrently(HttpStatus.PRECONDITION_FAILED);
+        }
+        return ResponseEntity.noContent().eTag(ETags.of(version.get())).build();
+    }
+
+    /**
+     * Deletes the patient and its readings with two set-based statements, without loading either. A patient
+     * with more than {@code clinicals.purge.async-threshold} readings is purged in the background instead:
+     * 202 with the purge's progress, which stays available at the {@code Location}.
+     */
+    // bounded size check, then the change_log entry, readings and patient
+    @QueryBudget(4)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!patientRepository.existsById(id)) {
+    public ResponseEntity<?> delete(@PathVariable Long id) {
+        if (purgeService.isPurging(id) || purgeService.isLarge(id)) {
+            URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/purge").build().toUri();
+            return ResponseEntity.accepted().location(location).body(purgeService.submit(id));
+        }
+        if (patientRepository.removeWithClinicalDataById(id) == 0) {
             return ResponseEntity.notFound().build();
         }
-        patientRepository.deleteById(id);
+        readCoalescer.forget(id);
+        eventPublisher.publishEvent(ClinicalDataModifiedEvent.of(id));
         return ResponseEntity.noContent().build();
     }
 
+    // progress of a background purge started by DELETE; kept for clinicals.purge.status-retention after it finishes
+    @QueryBudget(0)
+    @GetMapping("/{id}/purge")
+    public ResponseEntity<PurgeStatus> getPurge(@PathVariable Long id) {
+        return purgeService.status(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<Map<String, String>> modifiedConcurrently(HttpStatus status) {
+        return ResponseEntity.status(status)
+                .body(Map.of("error", "Patient was modified by another request; fetch it again and retry"));
+    }
+
+    private static String nextLink(Long lastId, int pageSize) {
+        URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", lastId)
+                .replaceQueryParam("limit", pageSize)
+                .build()
+                .toUri();
+        return "<" + next + ">; rel=\"next\"";
+    }
+
     // --- Error handlers ---
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
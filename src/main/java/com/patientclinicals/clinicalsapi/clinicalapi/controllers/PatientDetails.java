@@ -0,0 +1,22 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.util.List;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+
+/**
+ * Response body for {@code GET /patients/{id}?include=clinicalData}: the patient plus its readings.
+ */
+public record PatientDetails(
+        Long id,
+        String firstName,
+        String lastName,
+        Integer age,
+        List<ClinicalData> clinicalData) {
+
+    static PatientDetails from(Patient patient) {
+        return new PatientDetails(patient.getId(), patient.getFirstName(), patient.getLastName(),
+                patient.getAge(), patient.getClinicalData() == null ? List.of() : List.copyOf(patient.getClinicalData()));
+    }
+}
@@ -0,0 +1,10 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+/**
+ * Patchable fields of a patient ({@code PATCH /patients/{id}}); {@code null} leaves the stored value unchanged.
+ */
+public record PatientPatch(
+        String firstName,
+        String lastName,
+        Integer age) {
+}
@@ -0,0 +1,70 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Warns about write transactions that commit more than {@code clinicals.changes.settle-time} after they began.
+ * Their change_log entries are stamped when written, so {@code GET /changes} may already have served later
+ * entries, and moved clients past these, before they became visible. Every write to patients and readings is
+ * logged, so any slow write transaction is a candidate; the settle time should be raised if this shows up.
+ */
+@Component
+public class SlowCommitMonitor implements TransactionExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowCommitMonitor.class);
+
+    // begin times of the thread's open transactions; REQUIRES_NEW runs one while another is suspended
+    private final ThreadLocal<Deque<Long>> started = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Duration settleTime;
+    private final Counter slowCommits;
+
+    public SlowCommitMonitor(ChangeFeedProperties properties, MeterRegistry meterRegistry) {
+        this.settleTime = properties.settleTime();
+        this.slowCommits = Counter.builder("clinicals.changes.slow.commits")
+                .description("Write transactions that took longer than the change feed's settle time")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure == null) {
+            started.get().push(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        long elapsed = finished();
+        if (commitFailure == null && !transaction.isReadOnly() && elapsed > settleTime.toNanos()) {
+            slowCommits.increment();
+            logger.warn("Transaction {} committed {} ms after it began, more than clinicals.changes.settle-time ({});"
+                            + " change feed clients may have skipped its entries",
+                    transaction.getTransactionName(), elapsed / 1_000_000, settleTime);
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        finished();
+    }
+
+    private long finished() {
+        Deque<Long> open = started.get();
+        Long begin = open.poll();
+        if (open.isEmpty()) {
+            started.remove();
+        }
+        return begin == null ? 0 : System.nanoTime() - begin;
+    }
+}
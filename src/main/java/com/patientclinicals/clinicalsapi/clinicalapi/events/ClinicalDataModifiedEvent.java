@@ -0,0 +1,13 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.events;
+
+import java.util.Set;
+
+/**
+ * Published after existing readings of the given patients were updated or deleted.
+ */
+public record ClinicalDataModifiedEvent(Set<Long> patientIds) {
+
+    public static ClinicalDataModifiedEvent of(Long patientId) {
+        return new ClinicalDataModifiedEvent(Set.of(patientId));
+    }
+}
@@ -0,0 +1,12 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.events;
+
+import java.util.List;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+
+/**
+ * Published after new readings are stored. Listeners should use
+ * {@code @TransactionalEventListener} so they only see committed readings.
+ */
+public record ClinicalDataSavedEvent(List<ClinicalData> readings) {
+}
@@ -0,0 +1,90 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ReadingExportRow;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Writes patients or readings as RFC 4180 CSV straight from a database cursor, one row at a time, so memory
+ * use does not depend on the number of rows. Times are ISO-8601 instants.
+ */
+@Component
+public class CsvExportWriter {
+
+    // rows between progress reports
+    static final int PROGRESS_INTERVAL = 10_000;
+
+    private final PatientRepository patientRepository;
+    private final ClinicalDataRepository clinicalDataRepository;
+    private final EntityManager entityManager;
+
+    public CsvExportWriter(PatientRepository patientRepository, ClinicalDataRepository clinicalDataRepository,
+                           EntityManager entityManager) {
+        this.patientRepository = patientRepository;
+        this.clinicalDataRepository = clinicalDataRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Writes every patient and returns the number of rows; {@code progress} gets the running count.
+     */
+    @Transactional(readOnly = true)
+    public long writePatients(Writer out, LongConsumer progress) throws IOException {
+        out.write("id,first_name,last_name,age\n");
+        long rows = 0;
+        try (Stream<Patient> patients = patientRepository.streamAllByOrderByIdAsc()) {
+            for (Patient patient : (Iterable<Patient>) patients::iterator) {
+                out.write(patient.getId() + "," + field(patient.getFirstName()) + "," + field(patient.getLastName())
+                        + "," + patient.getAge() + "\n");
+                // the patient stream returns entities; detach each so the persistence context stays flat
+                entityManager.detach(patient);
+                if (++rows % PROGRESS_INTERVAL == 0) {
+                    progress.accept(rows);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Writes the readings measured in {@code [from, to)} and returns the number of rows; {@code progress}
+     * gets the running count.
+     */
+    @Transactional(readOnly = true)
+    public long writeClinicalData(Instant from, Instant to, Writer out, LongConsumer progress) throws IOException {
+        out.write("id,patient_id,component_name,component_value,measured_date_time\n");
+        long rows = 0;
+        try (Stream<ReadingExportRow> readings = clinicalDataRepository.streamExportRows(Timestamp.from(from),
+                Timestamp.from(to))) {
+            for (ReadingExportRow row : (Iterable<ReadingExportRow>) readings::iterator) {
+                out.write(row.id() + "," + row.patientId() + "," + field(row.componentName()) + ","
+                        + field(row.componentValue()) + "," + row.measuredDateTime().toInstant() + "\n");
+                if (++rows % PROGRESS_INTERVAL == 0) {
+                    progress.accept(rows);
+                }
+            }
+        }
+        return rows;
+    }
+
+    // quoted only when it has to be, with embedded quotes doubled
+    public static String field(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
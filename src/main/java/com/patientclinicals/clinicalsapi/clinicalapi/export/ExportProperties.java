@@ -0,0 +1,19 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.export;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link ExportService} ({@code clinicals.export.*}).
+ *
+ * @param directory where finished (and in-progress) export files are kept
+ * @param retention how long a finished export, and its file, stays available
+ */
+@ConfigurationProperties("clinicals.export")
+public record ExportProperties(
+        @DefaultValue("exports") Path directory,
+        @DefaultValue("24h") Duration retention) {
+}
@@ -0,0 +1,173 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.export.ExportStatus.State;
+import com.patientclinicals.clinicalsapi.clinicalapi.export.ExportStatus.Type;
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.BackgroundJob;
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.JobRunner;
+
+/**
+ * Runs CSV exports in the background, one at a time, into gzip files under {@code directory}. A file is
+ * written as {@code <id>.csv.gz.part} and renamed when complete, so only finished exports can be downloaded.
+ * Exports, and their files, are forgotten {@code retention} after they finish and on restart.
+ */
+@Component
+public class ExportService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    static final String SUFFIX = ".csv.gz";
+    private static final String PART_SUFFIX = SUFFIX + ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExportProperties properties;
+    private final CsvExportWriter writer;
+    private final JobRunner<String, Job> jobs = new JobRunner<>("export");
+
+    public ExportService(ExportProperties properties, CsvExportWriter writer) {
+        this.properties = properties;
+        this.writer = writer;
+    }
+
+    /**
+     * Queues an export; {@code from} and {@code to} bound the readings' measurement time and are null for
+     * patients.
+     */
+    public ExportStatus submit(Type type, Instant from, Instant to) {
+        jobs.removeExpired(properties.retention(),
+                job -> deleteQuietly(properties.directory().resolve(job.id + SUFFIX)));
+        String id = UUID.randomUUID().toString();
+        Job job = jobs.register(id, new Job(id, type, from, to));
+        if (!jobs.execute(job, this::run)) {
+            job.fail("Exports are not accepted while shutting down");
+        }
+        return job.status();
+    }
+
+    public Optional<ExportStatus> status(String id) {
+        return jobs.get(id).map(Job::status);
+    }
+
+    /**
+     * The file of a completed export.
+     */
+    public Optional<Path> file(String id) {
+        return status(id)
+                .filter(status -> status.state() == State.COMPLETED)
+                .map(status -> properties.directory().resolve(id + SUFFIX));
+    }
+
+    private void run(Job job) {
+        Path part = properties.directory().resolve(job.id + PART_SUFFIX);
+        try {
+            job.start();
+            long rows;
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(part), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                rows = job.type == Type.PATIENTS
+                        ? writer.writePatients(out, job::progress)
+                        : writer.writeClinicalData(job.from, job.to, out, job::progress);
+            }
+            Path file = Files.move(part, properties.directory().resolve(job.id + SUFFIX),
+                    StandardCopyOption.ATOMIC_MOVE);
+            job.complete(rows, Files.size(file));
+            logger.info("Export {} of {} finished: {} rows, {} bytes", job.id, job.type, rows, Files.size(file));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Export {} of {} failed", job.id, job.type, e);
+            job.fail(e.getMessage());
+            deleteQuietly(part);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete export file {}", path, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            Files.createDirectories(properties.directory());
+            // files of a previous run have no job to serve them
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(properties.directory(),
+                    "*{" + SUFFIX + "," + PART_SUFFIX + "}")) {
+                files.forEach(ExportService::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not prepare export directory " + properties.directory(), e);
+        }
+        jobs.start();
+    }
+
+    @Override
+    public void stop() {
+        // a running export is abandoned with its connection when the JVM exits; queued ones never start
+        jobs.stop(Duration.ofSeconds(5), true);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return jobs.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        return JobRunner.PHASE;
+    }
+
+    private static final class Job extends BackgroundJob<ExportStatus> {
+
+        private final String id;
+        private final Type type;
+        private final Instant from;
+        private final Instant to;
+
+        Job(String id, Type type, Instant from, Instant to) {
+            super(new ExportStatus(id, type, from, to, State.QUEUED, 0, null, null, null, null));
+            this.id = id;
+            this.type = type;
+            this.from = from;
+            this.to = to;
+        }
+
+        void start() {
+            update(s -> new ExportStatus(id, type, from, to, State.RUNNING, 0, null, Instant.now(), null, null));
+        }
+
+        void progress(long rows) {
+            update(s -> new ExportStatus(id, type, from, to, s.state(), rows, null, s.startedAt(), null, null));
+        }
+
+        void complete(long rows, long bytes) {
+            update(s -> new ExportStatus(id, type, from, to, State.COMPLETED, rows, bytes, s.startedAt(), Instant.now(), null));
+        }
+
+        @Override
+        protected ExportStatus failed(ExportStatus s, String error) {
+            return new ExportStatus(id, type, from, to, State.FAILED, s.rows(), null, s.startedAt(), Instant.now(), error);
+        }
+    }
+}
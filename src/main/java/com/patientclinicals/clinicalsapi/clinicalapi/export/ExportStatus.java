@@ -0,0 +1,36 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.export;
+
+import java.time.Instant;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.JobStatus;
+
+/**
+ * Progress of an export, as returned by {@code GET /exports/{id}}.
+ *
+ * @param from  lower bound (inclusive) of the readings' measurement time; null for patients
+ * @param to    upper bound (exclusive) of the readings' measurement time; null for patients
+ * @param rows  rows written so far
+ * @param bytes size of the finished gzip file
+ * @param error why the export stopped, for {@link State#FAILED}
+ */
+public record ExportStatus(
+        String id,
+        Type type,
+        Instant from,
+        Instant to,
+        State state,
+        long rows,
+        Long bytes,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) implements JobStatus {
+
+    public enum Type { PATIENTS, CLINICAL_DATA }
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    @Override
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+}
@@ -0,0 +1,23 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.importer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link ImportService} ({@code clinicals.import.*}).
+ *
+ * @param directory   where uploaded files, their progress checkpoints and rejected rows are kept
+ * @param chunkSize   lines parsed per task and readings written per transaction
+ * @param parallelism parser threads (0 = available processors)
+ * @param retention   how long a finished import's status and rejected rows stay available
+ */
+@ConfigurationProperties("clinicals.import")
+public record ImportProperties(
+        @DefaultValue("imports") Path directory,
+        @DefaultValue("2000") int chunkSize,
+        @DefaultValue("0") int parallelism,
+        @DefaultValue("24h") Duration retention) {
+}
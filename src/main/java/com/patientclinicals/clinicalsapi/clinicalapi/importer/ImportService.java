@@ -0,0 +1,374 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.importer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.export.CsvExportWriter;
+import com.patientclinicals.clinicalsapi.clinicalapi.importer.ImportStatus.Format;
+import com.patientclinicals.clinicalsapi.clinicalapi.importer.ImportStatus.State;
+import com.patientclinicals.clinicalsapi.clinicalapi.importer.ReadingParser.ParsedChunk;
+import com.patientclinicals.clinicalsapi.clinicalapi.importer.ReadingParser.Rejected;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.ClinicalDataIngestService;
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.BackgroundJob;
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.JobRunner;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Imports readings from uploaded CSV or NDJSON files in the background, one file at a time.
+ * <p>
+ * The upload is kept under {@code directory} and read sequentially in chunks of {@code chunkSize} lines. A
+ * fork-join pool parses several chunks ahead, checking patient ids against one in-memory set loaded when
+ * the import starts; the chunks are then stored in file order, each in one transaction of batched inserts
+ * ({@link ClinicalDataIngestService#replay}). Lines that cannot be imported go to {@code <id>.rejected.csv}
+ * with their line number and the reason.
+ * <p>
+ * After every stored chunk the progress is written to {@code <id>.status.json}. An import cut short by
+ * shutdown resumes from there on the next start, and a failed one on {@link #resume}; every line has a
+ * deterministic ingest key, so a chunk stored just before the interruption is skipped rather than stored twice.
+ */
+@Component
+public class ImportService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    static final String UPLOAD_SUFFIX = ".upload";
+    static final String REJECTED_SUFFIX = ".rejected.csv";
+    static final String CHECKPOINT_SUFFIX = ".status.json";
+
+    /**
+     * What {@code <id>.status.json} holds: the status, and how much of the rejected-rows file it accounts for.
+     */
+    record Checkpoint(ImportStatus status, long rejectedBytes) {
+    }
+
+    private final ImportProperties properties;
+    private final ClinicalDataIngestService ingestService;
+    private final PatientRepository patientRepository;
+    private final ObjectMapper objectMapper;
+    private final Counter importedReadings;
+    private final Counter rejectedLines;
+    private final JobRunner<String, Job> jobs = new JobRunner<>("import");
+
+    private ForkJoinPool parsers;
+
+    public ImportService(ImportProperties properties, ClinicalDataIngestService ingestService,
+                         PatientRepository patientRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.ingestService = ingestService;
+        this.patientRepository = patientRepository;
+        this.objectMapper = objectMapper;
+        this.importedReadings = Counter.builder("clinicals.import.readings")
+                .description("Readings stored by bulk imports")
+                .register(meterRegistry);
+        this.rejectedLines = Counter.builder("clinicals.import.rejected")
+                .description("Lines of bulk imports written to the rejected-rows file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores {@code body} and queues its import.
+     *
+     * @throws IllegalArgumentException when a CSV file has no usable header
+     */
+    public ImportStatus submit(Format format, InputStream body) throws IOException {
+        jobs.removeExpired(properties.retention(), job -> deleteFiles(job.id));
+        Job job = new Job(new ImportStatus(UUID.randomUUID().toString(), format, State.QUEUED, 0, 0, 0, 0,
+                null, null, null), 0);
+        if (!jobs.isRunning()) {
+            job.fail("Imports are not accepted while shutting down");
+            return job.status();
+        }
+        Path upload = file(job.id, UPLOAD_SUFFIX);
+        Files.copy(body, upload);
+        if (format == Format.CSV) {
+            try (BufferedReader in = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+                ReadingParser.csv(job.id, in.readLine(), Set.of());
+            } catch (IllegalArgumentException e) {
+                deleteQuietly(upload);
+                throw e;
+            }
+        }
+        jobs.register(job.id, job);
+        checkpoint(job);
+        if (!jobs.execute(job, this::run)) {
+            job.fail("Imports are not accepted while shutting down");
+        }
+        return job.status();
+    }
+
+    public Optional<ImportStatus> status(String id) {
+        return jobs.get(id).map(Job::status);
+    }
+
+    /**
+     * The rejected-rows file of an import, complete up to its last stored chunk.
+     */
+    public Optional<Path> rejectedRows(String id) {
+        return status(id)
+                .map(status -> file(id, REJECTED_SUFFIX))
+                .filter(Files::exists);
+    }
+
+    /**
+     * Requeues a failed import from its last stored chunk; other imports are returned as they are.
+     */
+    public Optional<ImportStatus> resume(String id) {
+        return jobs.get(id).map(job -> {
+            if (job.requeue()) {
+                checkpoint(job);
+                if (!jobs.execute(job, this::run)) {
+                    job.fail("Imports are not accepted while shutting down");
+                }
+            }
+            return job.status();
+        });
+    }
+
+    private void run(Job job) {
+        Deque<ForkJoinTask<ParsedChunk>> window = new ArrayDeque<>();
+        try {
+            job.start();
+            checkpoint(job);
+            Path rejected = file(job.id, REJECTED_SUFFIX);
+            try (BufferedReader in = Files.newBufferedReader(file(job.id, UPLOAD_SUFFIX), StandardCharsets.UTF_8);
+                 FileChannel rejectedChannel = FileChannel.open(rejected, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 Writer rejectedOut = new BufferedWriter(Channels.newWriter(rejectedChannel, StandardCharsets.UTF_8))) {
+                // rows rejected after the last checkpoint are rejected again below
+                rejectedChannel.truncate(job.rejectedBytes).position(job.rejectedBytes);
+                if (job.rejectedBytes == 0) {
+                    rejectedOut.write("line,error,record\n");
+                }
+                Set<Long> knownPatients = new HashSet<>(patientRepository.findAllIds());
+                ReadingParser parser = job.format == Format.CSV
+                        ? ReadingParser.csv(job.id, in.readLine(), knownPatients)
+                        : ReadingParser.ndjson(job.id, objectMapper, knownPatients);
+                long line = job.format == Format.CSV ? 2 : 1;
+                for (long skip = job.status().lines(); skip > 0 && in.readLine() != null; skip--) {
+                    line++;
+                }
+                int parallelism = parsers.getParallelism();
+                List<String> lines;
+                while (jobs.isRunning() && !(lines = readChunk(in)).isEmpty()) {
+                    long firstLine = line;
+                    List<String> chunk = lines;
+                    window.add(parsers.submit(() -> parser.parse(firstLine, chunk)));
+                    line += chunk.size();
+                    // parse ahead of the database by a couple of chunks per parser thread, no further
+                    if (window.size() > 2 * parallelism) {
+                        store(job, window.remove().join(), rejectedOut, rejectedChannel);
+                    }
+                }
+                while (jobs.isRunning() && !window.isEmpty()) {
+                    store(job, window.remove().join(), rejectedOut, rejectedChannel);
+                }
+            }
+            if (!jobs.isRunning()) {
+                // the checkpoint still says RUNNING, so the next start resumes the import
+                job.fail("Interrupted by shutdown after " + job.status().lines() + " lines");
+                return;
+            }
+            // published last, so whoever sees COMPLETED finds the checkpoint final and the upload gone
+            ImportStatus status = job.status().withState(State.COMPLETED, Instant.now(), null);
+            checkpoint(job, status);
+            deleteQuietly(file(job.id, UPLOAD_SUFFIX));
+            job.complete(status);
+            logger.info("Import {} finished: {} lines, {} readings imported, {} skipped, {} rejected",
+                    job.id, status.lines(), status.imported(), status.skipped(), status.rejected());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Import {} failed after {} lines", job.id, job.status().lines(), e);
+            job.fail(e.getMessage());
+            try {
+                checkpoint(job);
+            } catch (UncheckedIOException checkpointFailure) {
+                logger.warn("Could not record the failure of import {}", job.id, checkpointFailure);
+            }
+        } finally {
+            window.forEach(task -> task.cancel(true));
+        }
+    }
+
+    private List<String> readChunk(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>(properties.chunkSize());
+        String line;
+        while (lines.size() < properties.chunkSize() && (line = in.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private void store(Job job, ParsedChunk chunk, Writer rejectedOut, FileChannel rejectedChannel) throws IOException {
+        int stored = chunk.readings().isEmpty() ? 0 : ingestService.replay(chunk.readings()).size();
+        for (Rejected rejected : chunk.rejected()) {
+            rejectedOut.write(rejected.line() + "," + CsvExportWriter.field(rejected.error()) + ","
+                    + CsvExportWriter.field(rejected.record()) + "\n");
+        }
+        rejectedOut.flush();
+        job.progress(chunk.lines(), stored, chunk.readings().size() - stored, chunk.rejected().size(),
+                rejectedChannel.position());
+        checkpoint(job);
+        importedReadings.increment(stored);
+        rejectedLines.increment(chunk.rejected().size());
+    }
+
+    // written aside and moved into place, so a crash leaves either the old checkpoint or the new one
+    private void checkpoint(Job job) {
+        checkpoint(job, job.status());
+    }
+
+    private void checkpoint(Job job, ImportStatus status) {
+        Path checkpoint = file(job.id, CHECKPOINT_SUFFIX);
+        Path next = file(job.id, CHECKPOINT_SUFFIX + ".next");
+        try {
+            objectMapper.writeValue(next.toFile(), new Checkpoint(status, job.rejectedBytes));
+            Files.move(next, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write checkpoint of import " + job.id, e);
+        }
+    }
+
+    private Path file(String id, String suffix) {
+        return properties.directory().resolve(id + suffix);
+    }
+
+    private void deleteFiles(String id) {
+        for (String suffix : List.of(UPLOAD_SUFFIX, REJECTED_SUFFIX, CHECKPOINT_SUFFIX)) {
+            deleteQuietly(file(id, suffix));
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete import file {}", path, e);
+        }
+    }
+
+    // imports of a previous run: unfinished ones are resumed, finished ones kept until they expire
+    private void recover() throws IOException {
+        Instant expired = Instant.now().minus(properties.retention());
+        try (DirectoryStream<Path> checkpoints = Files.newDirectoryStream(properties.directory(), "*" + CHECKPOINT_SUFFIX)) {
+            for (Path path : checkpoints) {
+                Checkpoint checkpoint;
+                try {
+                    checkpoint = objectMapper.readValue(path.toFile(), Checkpoint.class);
+                } catch (IOException e) {
+                    logger.warn("Ignoring unreadable import checkpoint {}", path, e);
+                    continue;
+                }
+                ImportStatus status = checkpoint.status();
+                Job job = new Job(status.isFinished() ? status : status.withState(State.QUEUED, null, null),
+                        checkpoint.rejectedBytes());
+                if (job.finishedBefore(expired)) {
+                    deleteFiles(job.id);
+                    continue;
+                }
+                jobs.register(job.id, job);
+                if (!job.status().isFinished()) {
+                    logger.info("Resuming import {} after {} lines", job.id, job.status().lines());
+                    jobs.execute(job, this::run);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        int parallelism = properties.parallelism() > 0 ? properties.parallelism() : Runtime.getRuntime().availableProcessors();
+        parsers = new ForkJoinPool(parallelism);
+        jobs.start();
+        try {
+            Files.createDirectories(properties.directory());
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not prepare import directory " + properties.directory(), e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        // the running import stops after the chunk it is storing, queued ones without starting
+        jobs.stop(Duration.ofSeconds(30), false);
+        parsers.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return jobs.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        return JobRunner.PHASE;
+    }
+
+    private static final class Job extends BackgroundJob<ImportStatus> {
+
+        private final String id;
+        private final Format format;
+        // size of the rejected-rows file at the last checkpoint
+        private volatile long rejectedBytes;
+
+        Job(ImportStatus status, long rejectedBytes) {
+            super(status);
+            this.id = status.id();
+            this.format = status.format();
+            this.rejectedBytes = rejectedBytes;
+        }
+
+        boolean requeue() {
+            return updateIf(s -> s.state() == State.FAILED, s -> s.withState(State.QUEUED, null, null));
+        }
+
+        void start() {
+            update(s -> s.withState(State.RUNNING, null, null));
+        }
+
+        void progress(int lines, int imported, int skipped, int rejected, long rejectedBytes) {
+            update(s -> s.plus(lines, imported, skipped, rejected));
+            this.rejectedBytes = rejectedBytes;
+        }
+
+        void complete(ImportStatus completed) {
+            update(s -> completed);
+        }
+
+        @Override
+        protected ImportStatus failed(ImportStatus s, String error) {
+            return s.withState(State.FAILED, Instant.now(), error);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.importer;
+
+import java.time.Instant;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.JobStatus;
+
+/**
+ * Progress of an import, as returned by {@code GET /imports/{id}}; also its checkpoint, saved after every
+ * committed chunk.
+ *
+ * @param lines      data lines processed so far, the point a resumed import continues from
+ * @param imported   readings stored
+ * @param skipped    readings not stored because an earlier run of the same import already stored them, or
+ *                   because their patient was deleted meanwhile
+ * @param rejected   lines written to the rejected-rows file
+ * @param error      why the import stopped, for {@link State#FAILED}
+ */
+public record ImportStatus(
+        String id,
+        Format format,
+        State state,
+        long lines,
+        long imported,
+        long skipped,
+        long rejected,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) implements JobStatus {
+
+    public enum Format { CSV, NDJSON }
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    @Override
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    ImportStatus withState(State state, Instant finishedAt, String error) {
+        return new ImportStatus(id, format, state, lines, imported, skipped, rejected,
+                startedAt == null && state == State.RUNNING ? Instant.now() : startedAt, finishedAt, error);
+    }
+
+    ImportStatus plus(long lines, long imported, long skipped, long rejected) {
+        return new ImportStatus(id, format, state, this.lines + lines, this.imported + imported,
+                this.skipped + skipped, this.rejected + rejected, startedAt, finishedAt, error);
+    }
+}
@@ -0,0 +1,193 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.importer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.SpooledReading;
+
+/**
+ * Turns lines of an import file into readings. Holds no state besides the column layout and the patient ids
+ * known when the import started, so chunks of one file are parsed on several threads at once.
+ * <p>
+ * CSV files start with a header naming at least {@code patient_id}, {@code component_name} and
+ * {@code component_value}, optionally {@code measured_date_time} (ISO-8601 instant), in any order; other
+ * columns, such as the {@code id} of an export, are ignored. NDJSON lines are {@link ClinicalDataRequest}s.
+ * A reading without a measurement time is stamped with the time it is parsed.
+ */
+final class ReadingParser {
+
+    // clinicaldata.component_name and component_value are VARCHAR(255)
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    /**
+     * A line that could not be imported: its number in the file, why, and the line itself.
+     */
+    record Rejected(long line, String error, String record) {
+    }
+
+    /**
+     * The outcome of one chunk of {@code lines} lines, blank ones included.
+     */
+    record ParsedChunk(int lines, List<SpooledReading> readings, List<Rejected> rejected) {
+    }
+
+    private final String importId;
+    private final Set<Long> knownPatients;
+    private final ObjectMapper objectMapper;
+    // CSV column positions, -1 when absent; unused for NDJSON
+    private final int patientIdColumn;
+    private final int componentNameColumn;
+    private final int componentValueColumn;
+    private final int measuredDateTimeColumn;
+
+    private ReadingParser(String importId, Set<Long> knownPatients, ObjectMapper objectMapper, List<String> header) {
+        this.importId = importId;
+        this.knownPatients = knownPatients;
+        this.objectMapper = objectMapper;
+        this.patientIdColumn = header.indexOf("patient_id");
+        this.componentNameColumn = header.indexOf("component_name");
+        this.componentValueColumn = header.indexOf("component_value");
+        this.measuredDateTimeColumn = header.indexOf("measured_date_time");
+    }
+
+    /**
+     * A parser for the CSV file whose first line is {@code header}.
+     *
+     * @throws IllegalArgumentException when the header is missing or lacks a required column
+     */
+    static ReadingParser csv(String importId, String header, Set<Long> knownPatients) {
+        if (header == null || header.isBlank()) {
+            throw new IllegalArgumentException("CSV file must start with a header line");
+        }
+        List<String> columns = split(header).stream().map(String::trim).toList();
+        if (!columns.containsAll(List.of("patient_id", "component_name", "component_value"))) {
+            throw new IllegalArgumentException("CSV header must name patient_id, component_name and component_value");
+        }
+        return new ReadingParser(importId, knownPatients, null, columns);
+    }
+
+    static ReadingParser ndjson(String importId, ObjectMapper objectMapper, Set<Long> knownPatients) {
+        return new ReadingParser(importId, knownPatients, objectMapper, List.of());
+    }
+
+    /**
+     * Parses {@code lines}, the first of which is line {@code firstLine} of the file.
+     */
+    ParsedChunk parse(long firstLine, List<String> lines) {
+        List<SpooledReading> readings = new ArrayList<>(lines.size());
+        List<Rejected> rejected = new ArrayList<>();
+        long line = firstLine;
+        for (String text : lines) {
+            if (!text.isBlank()) {
+                try {
+                    readings.add(objectMapper == null ? parseCsv(line, text) : parseJson(line, text));
+                } catch (IllegalArgumentException e) {
+                    rejected.add(new Rejected(line, e.getMessage(), text));
+                }
+            }
+            line++;
+        }
+        return new ParsedChunk(lines.size(), readings, rejected);
+    }
+
+    private SpooledReading parseCsv(long line, String text) {
+        List<String> fields = split(text);
+        Long patientId;
+        try {
+            patientId = Long.valueOf(column(fields, patientIdColumn).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("patient_id must be a number");
+        }
+        Long measuredAt = null;
+        String measuredDateTime = column(fields, measuredDateTimeColumn).trim();
+        if (!measuredDateTime.isEmpty()) {
+            try {
+                measuredAt = Instant.parse(measuredDateTime).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("measured_date_time must be an ISO-8601 instant");
+            }
+        }
+        return toReading(line, patientId, column(fields, componentNameColumn), column(fields, componentValueColumn),
+                measuredAt);
+    }
+
+    private SpooledReading parseJson(long line, String text) {
+        ClinicalDataRequest request;
+        try {
+            request = objectMapper.readValue(text, ClinicalDataRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage());
+        }
+        return toReading(line, request.getPatientId(), request.getComponentName(), request.getComponentValue(),
+                request.getMeasuredDateTime() == null ? null : request.getMeasuredDateTime().getTime());
+    }
+
+    private SpooledReading toReading(long line, Long patientId, String componentName, String componentValue,
+                                     Long measuredAt) {
+        if (patientId == null || componentName == null || componentName.isBlank()
+                || componentValue == null || componentValue.isBlank()) {
+            throw new IllegalArgumentException("patientId, componentName and componentValue are required");
+        }
+        if (componentName.length() > MAX_FIELD_LENGTH || componentValue.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("componentName and componentValue are limited to "
+                    + MAX_FIELD_LENGTH + " characters");
+        }
+        if (!knownPatients.contains(patientId)) {
+            throw new IllegalArgumentException("Unknown patient id " + patientId);
+        }
+        // the same line of the same import always gets the same key, so a resumed import skips what it stored
+        String ingestKey = UUID.nameUUIDFromBytes((importId + ":" + line).getBytes(StandardCharsets.UTF_8)).toString();
+        return new SpooledReading(ingestKey, patientId, componentName, componentValue,
+                measuredAt != null ? measuredAt : System.currentTimeMillis());
+    }
+
+    private static String column(List<String> fields, int column) {
+        if (column < 0) {
+            return "";
+        }
+        if (column >= fields.size()) {
+            throw new IllegalArgumentException("Expected at least " + (column + 1) + " fields, found " + fields.size());
+        }
+        return fields.get(column);
+    }
+
+    // RFC 4180 fields on one line: quoted where needed, embedded quotes doubled (as written by the exports)
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,160 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataSavedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Inserts many clinical readings at once. Patient ids are checked with a single query and rows are
+ * persisted in JDBC-batch sized chunks; the persistence context is flushed and cleared after each chunk
+ * so memory stays bounded regardless of the request size.
+ */
+@Service
+public class ClinicalDataIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClinicalDataIngestService.class);
+
+    private final PatientRepository patientRepository;
+    private final ClinicalDataRepository clinicalDataRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public ClinicalDataIngestService(PatientRepository patientRepository, ClinicalDataRepository clinicalDataRepository,
+                                     EntityManager entityManager, ApplicationEventPublisher eventPublisher,
+                                     @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.patientRepository = patientRepository;
+        this.clinicalDataRepository = clinicalDataRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the patient ids referenced by {@code requests} that do not exist.
+     */
+    public Set<Long> findUnknownPatientIds(Collection<ClinicalDataRequest> requests) {
+        return unknownPatientIds(requests.stream()
+                .map(ClinicalDataRequest::getPatientId)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Persists the readings; callers are expected to have validated the patient ids first.
+     * The returned entities are detached and carry their generated ids.
+     */
+    @Transactional
+    public List<ClinicalData> insertAll(List<ClinicalDataRequest> requests) {
+        return persistAll(toEntities(requests), true);
+    }
+
+    /**
+     * {@link #insertAll} without change_log entries, for seeding an empty database; clients start from a full
+     * load, so the feed has nothing to replay.
+     */
+    @Transactional
+    public List<ClinicalData> insertAllUnlogged(List<ClinicalDataRequest> requests) {
+        return persistAll(toEntities(requests), false);
+    }
+
+    /**
+     * Idempotent insert of readings carrying an ingest key (spool replay, bulk imports). Readings whose ingest
+     * key is already stored (a previous replay committed before its checkpoint was written) or whose patient
+     * no longer exists are skipped.
+     */
+    @Transactional
+    public List<ClinicalData> replay(List<SpooledReading> readings) {
+        Set<String> alreadyStored = clinicalDataRepository.findExistingIngestKeys(
+                readings.stream().map(SpooledReading::ingestKey).toList());
+        Set<Long> unknown = unknownPatientIds(readings.stream()
+                .map(SpooledReading::patientId)
+                .collect(Collectors.toSet()));
+        List<ClinicalData> entities = new ArrayList<>(readings.size());
+        for (SpooledReading reading : readings) {
+            if (alreadyStored.contains(reading.ingestKey()) || unknown.contains(reading.patientId())) {
+                continue;
+            }
+            ClinicalData clinicalData = toEntity(reading.patientId(), reading.componentName(),
+                    reading.componentValue(), reading.measuredDateTime());
+            clinicalData.setIngestKey(reading.ingestKey());
+            entities.add(clinicalData);
+        }
+        if (!unknown.isEmpty()) {
+            logger.warn("Skipping readings for unknown patients {}", unknown);
+        }
+        return persistAll(entities, true);
+    }
+
+    private Set<Long> unknownPatientIds(Set<Long> referenced) {
+        Set<Long> unknown = new HashSet<>(referenced);
+        unknown.removeAll(patientRepository.findExistingIds(referenced));
+        return unknown;
+    }
+
+    private ClinicalData toEntity(Long patientId, String componentName, String componentValue, Timestamp measuredDateTime) {
+        ClinicalData clinicalData = new ClinicalData(componentName, componentValue, measuredDateTime);
+        clinicalData.setPatient(patientRepository.getReferenceById(patientId));
+        return clinicalData;
+    }
+
+    private List<ClinicalData> toEntities(List<ClinicalDataRequest> requests) {
+        List<ClinicalData> entities = new ArrayList<>(requests.size());
+        for (ClinicalDataRequest request : requests) {
+            entities.add(toEntity(request.getPatientId(), request.getComponentName(),
+                    request.getComponentValue(), request.getMeasuredDateTime()));
+        }
+        return entities;
+    }
+
+    private List<ClinicalData> persistAll(List<ClinicalData> entities, boolean logChanges) {
+        List<Long> chunk = new ArrayList<>(batchSize);
+        int persisted = 0;
+        for (ClinicalData clinicalData : entities) {
+            entityManager.persist(clinicalData);
+            if (logChanges) {
+                chunk.add(clinicalData.getId());
+            }
+            if (++persisted % batchSize == 0) {
+                flushAndLog(chunk);
+            }
+        }
+        flushAndLog(chunk);
+        logger.debug("Inserted {} clinical readings", entities.size());
+        if (!entities.isEmpty()) {
+            // delivered to transactional listeners after commit
+            eventPublisher.publishEvent(new ClinicalDataSavedEvent(entities));
+        }
+        return entities;
+    }
+
+    // one change_log insert-select per JDBC batch, so its IN list stays batch-sized
+    private void flushAndLog(List<Long> chunk) {
+        entityManager.flush();
+        if (!chunk.isEmpty()) {
+            clinicalDataRepository.logChanges(chunk, ChangeLogEntry.Operation.UPSERT,
+                    new Timestamp(System.currentTimeMillis()));
+            chunk.clear();
+        }
+        entityManager.clear();
+    }
+}
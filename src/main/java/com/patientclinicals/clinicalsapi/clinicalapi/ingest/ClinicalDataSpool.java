@@ -0,0 +1,276 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.exception.JDBCConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Durable fallback for clinical reading writes while the database is unreachable. Readings are appended
+ * to a local {@link IngestJournal} and a background task replays them, oldest first and in batches, once
+ * the datasource answers again. Each spooled reading carries an ingest key so a batch that committed
+ * just before a crash is not stored twice.
+ * <p>
+ * A reading the database rejects for any reason but an outage (a corrupt entry, a value too long for its
+ * column) is appended to {@value #DEAD_LETTER_FILE} in the spool directory and skipped, so it cannot hold
+ * back the readings spooled after it.
+ */
+@Component
+public class ClinicalDataSpool implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClinicalDataSpool.class);
+
+    static final String DEAD_LETTER_FILE = "dead-letter.ndjson";
+
+    private final SpoolProperties properties;
+    private final ClinicalDataIngestService ingestService;
+    private final ObjectMapper objectMapper;
+    private final Counter spooled;
+    private final Counter replayed;
+    private final Counter deadLettered;
+    private final MeterRegistry meterRegistry;
+
+    private IngestJournal journal;
+    private ScheduledExecutorService replayer;
+    private volatile boolean running;
+
+    public ClinicalDataSpool(SpoolProperties properties, ClinicalDataIngestService ingestService,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.ingestService = ingestService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.spooled = Counter.builder("clinicals.ingest.spool.appended")
+                .description("Readings written to the local spool while the database was unavailable")
+                .register(meterRegistry);
+        this.replayed = Counter.builder("clinicals.ingest.spool.replayed")
+                .description("Spooled readings replayed into the database")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("clinicals.ingest.spool.dead.lettered")
+                .description("Readings set aside in the dead-letter file because the database rejected them")
+                .register(meterRegistry);
+    }
+
+    /**
+     * True when {@code e} (or one of its causes) means the database could not be reached,
+     * as opposed to a problem with the data itself.
+     */
+    public static boolean isDatabaseUnavailable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof CannotCreateTransactionException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof JDBCConnectionException
+                    || t instanceof SQLTransientConnectionException
+                    || t instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    public void append(ClinicalDataRequest request) {
+        appendAll(List.of(request));
+    }
+
+    /**
+     * Spools the readings in order; all are checked first, so an incomplete one is rejected with
+     * {@link IllegalArgumentException} before anything is written.
+     */
+    public void appendAll(List<ClinicalDataRequest> requests) {
+        List<SpooledReading> readings = requests.stream().map(SpooledReading::of).toList();
+        if (!readings.stream().allMatch(SpooledReading::isComplete)) {
+            throw new IllegalArgumentException("patientId, componentName and componentValue are required");
+        }
+        for (SpooledReading reading : readings) {
+            journal.append(encode(reading));
+        }
+        spooled.increment(readings.size());
+    }
+
+    /**
+     * Replays spooled readings until the journal is empty or the database fails again.
+     */
+    void replay() {
+        try {
+            List<IngestJournal.Entry> entries;
+            while (running && !(entries = journal.read(properties.replayBatchSize())).isEmpty()) {
+                List<SpooledReading> readings = new ArrayList<>(entries.size());
+                for (IngestJournal.Entry entry : entries) {
+                    SpooledReading reading = decode(entry);
+                    if (reading != null) {
+                        readings.add(reading);
+                    }
+                }
+                int stored = store(readings);
+                journal.commit(entries.get(entries.size() - 1).next());
+                replayed.increment(stored);
+            }
+            journal.force();
+        } catch (RuntimeException e) {
+            if (isDatabaseUnavailable(e)) {
+                logger.warn("Database still unavailable; {} readings remain spooled", journal.pendingEntries());
+            } else {
+                logger.error("Spool replay failed; {} readings remain spooled", journal.pendingEntries(), e);
+            }
+        }
+    }
+
+    long pendingEntries() {
+        return journal.pendingEntries();
+    }
+
+    // a batch rejected for anything but an outage is retried one reading at a time, so only the readings at
+    // fault are set aside; an outage propagates and leaves the whole batch spooled
+    private int store(List<SpooledReading> readings) {
+        if (readings.isEmpty()) {
+            return 0;
+        }
+        try {
+            ingestService.replay(readings);
+            return readings.size();
+        } catch (RuntimeException e) {
+            if (isDatabaseUnavailable(e)) {
+                throw e;
+            }
+            if (readings.size() == 1) {
+                deadLetter(encode(readings.get(0)), e.toString());
+                return 0;
+            }
+            int stored = 0;
+            for (SpooledReading reading : readings) {
+                stored += store(List.of(reading));
+            }
+            return stored;
+        }
+    }
+
+    // null when the entry cannot be replayed; it has then been dead-lettered
+    private SpooledReading decode(IngestJournal.Entry entry) {
+        SpooledReading reading;
+        try {
+            reading = objectMapper.readValue(entry.payload(), SpooledReading.class);
+        } catch (IOException e) {
+            deadLetter(entry.payload(), "Corrupt spool entry: " + e.getMessage());
+            return null;
+        }
+        if (!reading.isComplete()) {
+            deadLetter(entry.payload(), "patientId, componentName and componentValue are required");
+            return null;
+        }
+        return reading;
+    }
+
+    private byte[] encode(SpooledReading reading) {
+        try {
+            return objectMapper.writeValueAsBytes(reading);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sets aside a reading the database rejected on another write path (a write-behind flush), in the same
+     * dead-letter file as replay, whether or not spooling is enabled. A failure to write it is only logged.
+     */
+    public void deadLetter(ClinicalDataRequest request, String reason) {
+        try {
+            deadLetter(encode(SpooledReading.of(request)), reason);
+        } catch (UncheckedIOException e) {
+            logger.error("Rejected reading for patient {} is lost", request.getPatientId(), e);
+        }
+    }
+
+    // one JSON line per reading: the reason and the entry as it was spooled, for a manual re-post
+    private void deadLetter(byte[] payload, String reason) {
+        Path file = properties.directory().resolve(DEAD_LETTER_FILE);
+        try {
+            Files.createDirectories(properties.directory());
+            byte[] line = objectMapper.writeValueAsBytes(objectMapper.createObjectNode()
+                    .put("reason", reason)
+                    .put("entry", new String(payload, StandardCharsets.UTF_8)));
+            Files.write(file, List.of(new String(line, StandardCharsets.UTF_8)), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // without a dead-letter copy the entry must stay in the journal
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+        deadLettered.increment();
+        logger.error("Spooled reading rejected ({}); moved to {}", reason, file);
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        try {
+            journal = new IngestJournal(properties.directory(), (int) properties.segmentSize().toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open ingest spool at " + properties.directory(), e);
+        }
+        Gauge.builder("clinicals.ingest.spool.pending", journal, IngestJournal::pendingEntries)
+                .description("Spooled readings waiting to be replayed")
+                .register(meterRegistry);
+        if (!journal.isEmpty()) {
+            logger.info("Ingest spool holds {} readings from a previous run", journal.pendingEntries());
+        }
+        running = true;
+        replayer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("ingest-spool-replay").daemon().factory());
+        long interval = properties.replayInterval().toMillis();
+        replayer.scheduleWithFixedDelay(this::replay, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        replayer.shutdown();
+        try {
+            replayer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // outlive the write-behind buffer so readings it fails to flush on shutdown can still be spooled
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+}
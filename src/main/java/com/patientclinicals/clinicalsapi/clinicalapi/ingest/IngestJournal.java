@@ -0,0 +1,254 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped journal made of fixed-size segment files.
+ * <p>
+ * Appends are plain memory copies into the mapped segment, so they are cheap enough for a request thread;
+ * the pages reach disk through the OS page cache (surviving a process crash) and {@link #force()} can be
+ * called periodically for stronger durability. One consumer reads entries in append order and advances a
+ * checkpoint with {@link #commit(Position)}; fully consumed segments are deleted.
+ * <p>
+ * Record layout: {@code int length, int crc32c, byte[length] payload}. A zero length marks the end of the
+ * written data (segments are zero-filled) and {@code -1} means "continued in the next segment".
+ */
+public class IngestJournal implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final int END_OF_SEGMENT = -1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * Location of a record boundary: segment number and byte offset within it.
+     */
+    public record Position(long segment, int offset) {
+    }
+
+    /**
+     * One journal record together with the position just after it, to be passed to {@link #commit}.
+     */
+    public record Entry(byte[] payload, Position next) {
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+
+    // writer state, guarded by this
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private long pendingEntries;
+
+    // published by the writer after each complete record, read by the consumer
+    private volatile Position writePosition;
+    private volatile Position readPosition;
+
+    public IngestJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        recover();
+    }
+
+    /**
+     * Appends one record. Payloads larger than a segment are rejected.
+     */
+    public synchronized void append(byte[] payload) {
+        int recordSize = HEADER_BYTES + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds segment size " + segmentSize);
+        }
+        if (writeBuffer.remaining() < recordSize) {
+            if (writeBuffer.remaining() >= Integer.BYTES) {
+                writeBuffer.putInt(writeBuffer.position(), END_OF_SEGMENT);
+            }
+            writeBuffer.force();
+            writeSegment++;
+            writeBuffer = openSegment(writeSegment);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int start = writeBuffer.position();
+        writeBuffer.position(start + Integer.BYTES);
+        writeBuffer.putInt((int) crc.getValue());
+        writeBuffer.put(payload);
+        // the length goes in last so a torn write is never mistaken for a complete record
+        writeBuffer.putInt(start, payload.length);
+        pendingEntries++;
+        writePosition = new Position(writeSegment, writeBuffer.position());
+    }
+
+    /**
+     * Reads up to {@code max} records after the current checkpoint without consuming them.
+     */
+    public List<Entry> read(int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, 1024));
+        Position end = writePosition;
+        Position cursor = readPosition;
+        while (entries.size() < max && !cursor.equals(end)) {
+            ByteBuffer segment = segmentBuffer(cursor.segment());
+            int offset = cursor.offset();
+            int length = segmentSize - offset >= HEADER_BYTES ? segment.getInt(offset) : END_OF_SEGMENT;
+            if (length == END_OF_SEGMENT || length == 0) {
+                cursor = new Position(cursor.segment() + 1, 0);
+                continue;
+            }
+            byte[] payload = new byte[length];
+            segment.get(offset + HEADER_BYTES, payload);
+            cursor = new Position(cursor.segment(), offset + HEADER_BYTES + length);
+            entries.add(new Entry(payload, cursor));
+        }
+        return entries;
+    }
+
+    /**
+     * Marks everything before {@code position} as consumed, persists the checkpoint and deletes segments
+     * that can no longer be read.
+     */
+    public void commit(Position position) {
+        Position previous = readPosition;
+        try {
+            Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(tmp, position.segment() + ":" + position.offset());
+            Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write journal checkpoint", e);
+        }
+        readPosition = position;
+        synchronized (this) {
+            pendingEntries -= countEntries(previous, position);
+            for (long segment = previous.segment(); segment < position.segment(); segment++) {
+                segments.remove(segment);
+                try {
+                    Files.deleteIfExists(segmentPath(segment));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not delete journal segment " + segment, e);
+                }
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return readPosition.equals(writePosition);
+    }
+
+    /**
+     * Number of appended records not yet committed.
+     */
+    public synchronized long pendingEntries() {
+        return pendingEntries;
+    }
+
+    /**
+     * Flushes the current segment's dirty pages to the storage device.
+     */
+    public synchronized void force() {
+        writeBuffer.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+        segments.clear();
+    }
+
+    private void recover() throws IOException {
+        List<Long> existing;
+        try (Stream<Path> files = Files.list(directory)) {
+            existing = files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            String[] parts = Files.readString(checkpoint).trim().split(":");
+            readPosition = new Position(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+        } else {
+            readPosition = new Position(existing.isEmpty() ? 0 : existing.get(0), 0);
+        }
+        writeSegment = existing.isEmpty() ? readPosition.segment() : Math.max(existing.get(existing.size() - 1), readPosition.segment());
+        writeBuffer = openSegment(writeSegment);
+        writeBuffer.position(scanToEnd(writeBuffer));
+        writePosition = new Position(writeSegment, writeBuffer.position());
+        pendingEntries = countEntries(readPosition, writePosition);
+    }
+
+    // offset just past the last intact record; a bad checksum means the process died mid-append
+    private int scanToEnd(ByteBuffer segment) {
+        int offset = 0;
+        while (segmentSize - offset >= HEADER_BYTES) {
+            int length = segment.getInt(offset);
+            if (length <= 0 || length > segmentSize - offset - HEADER_BYTES) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.get(offset + HEADER_BYTES, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.getInt(offset + Integer.BYTES)) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private long countEntries(Position from, Position to) {
+        long count = 0;
+        Position cursor = from;
+        while (!cursor.equals(to)) {
+            ByteBuffer segment = segmentBuffer(cursor.segment());
+            int length = segmentSize - cursor.offset() >= HEADER_BYTES ? segment.getInt(cursor.offset()) : END_OF_SEGMENT;
+            if (length == END_OF_SEGMENT || length == 0) {
+                cursor = new Position(cursor.segment() + 1, 0);
+                continue;
+            }
+            cursor = new Position(cursor.segment(), cursor.offset() + HEADER_BYTES + length);
+            count++;
+        }
+        return count;
+    }
+
+    // independent position/limit over the shared mapping, safe to use outside the writer lock
+    private ByteBuffer segmentBuffer(long segment) {
+        return openSegment(segment).duplicate();
+    }
+
+    private MappedByteBuffer openSegment(long segment) {
+        return segments.computeIfAbsent(segment, this::mapSegment);
+    }
+
+    private MappedByteBuffer mapSegment(long segment) {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map journal segment " + segment, e);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%016d%s", segment, SEGMENT_SUFFIX));
+    }
+}
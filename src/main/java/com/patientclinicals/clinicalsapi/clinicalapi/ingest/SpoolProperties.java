@@ -0,0 +1,26 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for {@link ClinicalDataSpool} ({@code clinicals.ingest.spool.*}).
+ *
+ * @param enabled         spool readings to local disk when the database is unreachable
+ * @param directory       where the journal segments and checkpoint live
+ * @param segmentSize     size of each memory-mapped journal segment
+ * @param replayBatchSize readings written per replay transaction
+ * @param replayInterval  how often the replayer checks for spooled readings (also the fsync cadence)
+ */
+@ConfigurationProperties("clinicals.ingest.spool")
+public record SpoolProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("spool") Path directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("500") int replayBatchSize,
+        @DefaultValue("5s") Duration replayInterval) {
+}
@@ -0,0 +1,34 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+
+/**
+ * A reading as written to the ingest spool. The ingest key makes replay idempotent and the
+ * measurement time is captured when the reading is spooled, not when it is finally stored.
+ */
+public record SpooledReading(
+        String ingestKey,
+        Long patientId,
+        String componentName,
+        String componentValue,
+        long measuredAtMillis) {
+
+    static SpooledReading of(ClinicalDataRequest request) {
+        long measuredAt = request.getMeasuredDateTime() != null
+                ? request.getMeasuredDateTime().getTime()
+                : System.currentTimeMillis();
+        return new SpooledReading(UUID.randomUUID().toString(), request.getPatientId(),
+                request.getComponentName(), request.getComponentValue(), measuredAt);
+    }
+
+    boolean isComplete() {
+        return ingestKey != null && patientId != null && componentName != null && componentValue != null;
+    }
+
+    Timestamp measuredDateTime() {
+        return new Timestamp(measuredAtMillis);
+    }
+}
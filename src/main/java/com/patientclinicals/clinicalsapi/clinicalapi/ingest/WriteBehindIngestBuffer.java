@@ -0,0 +1,215 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Bounded in-memory queue in front of {@link ClinicalDataIngestService}. Requests are acknowledged as
+ * soon as the reading is queued; a single flusher thread drains the queue whenever
+ * {@code maxBatchSize} readings are waiting or {@code flushInterval} has passed since the first one.
+ * <p>
+ * The lifecycle phase is below the embedded web server's, so on shutdown the server stops accepting
+ * requests first and the queue is then drained before the datasource goes away.
+ */
+@Component
+public class WriteBehindIngestBuffer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindIngestBuffer.class);
+
+    // upper bound on any single wait, so the flusher notices shutdown promptly
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final WriteBehindProperties properties;
+    private final ClinicalDataIngestService ingestService;
+    private final ClinicalDataSpool spool;
+    private final BlockingQueue<ClinicalDataRequest> queue;
+
+    private final Timer flushTimer;
+    private final DistributionSummary flushSize;
+    private final Counter rejected;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindIngestBuffer(WriteBehindProperties properties, ClinicalDataIngestService ingestService,
+                                   ClinicalDataSpool spool, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.ingestService = ingestService;
+        this.spool = spool;
+        this.queue = new ArrayBlockingQueue<>(properties.capacity());
+        Gauge.builder("clinicals.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Readings waiting in the write-behind queue")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("clinicals.ingest.flush")
+                .description("Time to write one write-behind batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("clinicals.ingest.flush.size")
+                .description("Readings written per write-behind batch")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("clinicals.ingest.rejected")
+                .description("Readings refused because the write-behind queue was full")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("clinicals.ingest.dropped")
+                .description("Queued readings that could not be written")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Queues a reading without blocking. Returns {@code false} when the queue is full or the buffer
+     * is not accepting work; the caller should then apply backpressure.
+     */
+    public boolean offer(ClinicalDataRequest request) {
+        if (running && queue.offer(request)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().name("ingest-flusher").daemon().start(this::drainLoop);
+        logger.info("Write-behind ingest enabled (capacity={}, maxBatchSize={}, flushInterval={})",
+                properties.capacity(), properties.maxBatchSize(), properties.flushInterval());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        logger.info("Draining {} queued readings", queue.size());
+        try {
+            flusher.join(properties.shutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            logger.warn("Write-behind queue not drained within {}; {} readings lost", properties.shutdownTimeout(), queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stop after the web server (DEFAULT_PHASE - 2048) has stopped taking requests
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        long intervalNanos = properties.flushInterval().toNanos();
+        List<ClinicalDataRequest> batch = new ArrayList<>(properties.maxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                ClinicalDataRequest first = queue.poll(Math.min(intervalNanos, MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + intervalNanos;
+                while (batch.size() < properties.maxBatchSize()) {
+                    queue.drainTo(batch, properties.maxBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= properties.maxBatchSize() || remaining <= 0 || !running) {
+                        break;
+                    }
+                    ClinicalDataRequest next = queue.poll(Math.min(remaining, MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(properties.maxBatchSize());
+            }
+        }
+    }
+
+    private void flush(List<ClinicalDataRequest> batch) {
+        flushSize.record(batch.size());
+        flushTimer.record(() -> {
+            List<ClinicalDataRequest> valid = batch;
+            try {
+                Set<Long> unknown = ingestService.findUnknownPatientIds(batch);
+                if (!unknown.isEmpty()) {
+                    valid = batch.stream().filter(r -> !unknown.contains(r.getPatientId())).toList();
+                    dropped.increment(batch.size() - valid.size());
+                    logger.warn("Dropped {} queued readings for unknown patients {}", batch.size() - valid.size(), unknown);
+                }
+                if (!valid.isEmpty()) {
+                    ingestService.insertAll(valid);
+                }
+            } catch (RuntimeException e) {
+                if (ClinicalDataSpool.isDatabaseUnavailable(e)) {
+                    spoolOrDrop(valid, e);
+                    return;
+                }
+                // every reading was acknowledged with 202: retry them one at a time so only the rejected ones are lost
+                insertEach(valid);
+            }
+        });
+    }
+
+    private void insertEach(List<ClinicalDataRequest> readings) {
+        for (int i = 0; i < readings.size(); i++) {
+            ClinicalDataRequest reading = readings.get(i);
+            try {
+                ingestService.insertAll(List.of(reading));
+            } catch (RuntimeException e) {
+                if (ClinicalDataSpool.isDatabaseUnavailable(e)) {
+                    spoolOrDrop(readings.subList(i, readings.size()), e);
+                    return;
+                }
+                dropped.increment();
+                spool.deadLetter(reading, e.toString());
+            }
+        }
+    }
+
+    private void spoolOrDrop(List<ClinicalDataRequest> readings, RuntimeException e) {
+        if (spool.isEnabled()) {
+            spool.appendAll(readings);
+            logger.warn("Database unavailable; spooled {} queued readings", readings.size());
+            return;
+        }
+        dropped.increment(readings.size());
+        logger.error("Failed to write {} queued readings", readings.size(), e);
+    }
+}
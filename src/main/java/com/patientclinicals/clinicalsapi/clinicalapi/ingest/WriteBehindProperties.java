@@ -0,0 +1,24 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link WriteBehindIngestBuffer} ({@code clinicals.ingest.write-behind.*}).
+ *
+ * @param enabled         queue single readings and write them in the background instead of inline
+ * @param capacity        maximum number of queued readings; further requests are rejected with 429
+ * @param maxBatchSize    a flush is triggered as soon as this many readings are waiting
+ * @param flushInterval   ...or when the oldest waiting reading has been queued this long
+ * @param shutdownTimeout how long shutdown waits for the queue to drain
+ */
+@ConfigurationProperties("clinicals.ingest.write-behind")
+public record WriteBehindProperties(
+        boolean enabled,
+        @DefaultValue("10000") int capacity,
+        @DefaultValue("500") int maxBatchSize,
+        @DefaultValue("200ms") Duration flushInterval,
+        @DefaultValue("30s") Duration shutdownTimeout) {
+}
@@ -0,0 +1,53 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.jobs;
+
+import java.time.Instant;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A background job's current status, an immutable {@link JobStatus} replaced as the job progresses. Readers
+ * see the latest status without locking; updates, from the worker as well as from request and shutdown
+ * threads, are serialized.
+ */
+public abstract class BackgroundJob<S extends JobStatus> {
+
+    private volatile S status;
+
+    protected BackgroundJob(S status) {
+        this.status = status;
+    }
+
+    public S status() {
+        return status;
+    }
+
+    protected synchronized void update(UnaryOperator<S> change) {
+        status = change.apply(status);
+    }
+
+    protected synchronized boolean updateIf(Predicate<? super S> condition, UnaryOperator<S> change) {
+        if (!condition.test(status)) {
+            return false;
+        }
+        status = change.apply(status);
+        return true;
+    }
+
+    /**
+     * The status with the job marked failed for {@code error}.
+     */
+    protected abstract S failed(S status, String error);
+
+    public void fail(String error) {
+        update(s -> failed(s, error));
+    }
+
+    public void failIfUnfinished(String error) {
+        updateIf(s -> !s.isFinished(), s -> failed(s, error));
+    }
+
+    public boolean finishedBefore(Instant instant) {
+        S s = status;
+        return s.isFinished() && s.finishedAt().isBefore(instant);
+    }
+}
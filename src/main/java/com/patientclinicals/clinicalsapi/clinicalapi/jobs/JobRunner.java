@@ -0,0 +1,114 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.jobs;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Runs one kind of background job (exports, imports, purges) one at a time on a dedicated thread, and keeps
+ * the jobs by key so their status can be polled until {@link #removeExpired} forgets them. The owning
+ * service starts and stops it from its {@link SmartLifecycle} methods, in phase {@link #PHASE}.
+ */
+public final class JobRunner<K, J extends BackgroundJob<?>> {
+
+    // stop after the web server (DEFAULT_PHASE - 2048) has stopped taking requests
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final String INTERRUPTED = "Interrupted by shutdown";
+
+    private final String threadName;
+    private final ConcurrentMap<K, J> jobs = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private ExecutorService worker;
+
+    public JobRunner(String threadName) {
+        this.threadName = threadName;
+    }
+
+    public Optional<J> get(K key) {
+        return Optional.ofNullable(jobs.get(key));
+    }
+
+    /**
+     * Registers {@code job} under {@code key} unless an unfinished job is registered there; returns the job
+     * now registered.
+     */
+    public J register(K key, J job) {
+        return jobs.merge(key, job, (existing, fresh) -> existing.status().isFinished() ? fresh : existing);
+    }
+
+    /**
+     * Queues {@code task} for the job; false, with nothing queued, once the runner is stopping. A queued task
+     * whose turn comes after {@link #stop} began does not run, and its job fails instead.
+     */
+    public boolean execute(J job, Consumer<? super J> task) {
+        if (!running) {
+            return false;
+        }
+        try {
+            worker.execute(() -> {
+                if (running) {
+                    task.accept(job);
+                } else {
+                    job.fail(INTERRUPTED);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Forgets the jobs that finished longer than {@code retention} ago, handing each to {@code onRemove}.
+     */
+    public void removeExpired(Duration retention, Consumer<? super J> onRemove) {
+        Instant expired = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            if (!job.finishedBefore(expired)) {
+                return false;
+            }
+            onRemove.accept(job);
+            return true;
+        });
+    }
+
+    public void start() {
+        worker = Executors.newSingleThreadExecutor(Thread.ofPlatform().name(threadName).daemon().factory());
+        running = true;
+    }
+
+    /**
+     * Stops taking jobs and waits up to {@code timeout} for the running one, which sees {@link #isRunning()}
+     * turn false at its next stopping point; with {@code interrupt} its thread is interrupted as well. Jobs
+     * unfinished after that are marked failed.
+     */
+    public void stop(Duration timeout, boolean interrupt) {
+        running = false;
+        if (interrupt) {
+            worker.shutdownNow();
+        } else {
+            worker.shutdown();
+        }
+        try {
+            worker.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        jobs.values().forEach(job -> job.failIfUnfinished(INTERRUPTED));
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
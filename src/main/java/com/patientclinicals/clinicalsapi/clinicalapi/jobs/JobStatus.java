@@ -0,0 +1,14 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.jobs;
+
+import java.time.Instant;
+
+/**
+ * What {@link JobRunner} needs to know about the status of a background job.
+ */
+public interface JobStatus {
+
+    boolean isFinished();
+
+    // set once the job is finished
+    Instant finishedAt();
+}
@@ -0,0 +1,45 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.logging;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * {@link AsyncAppender} that never blocks the logging thread and counts what it drops. Events go into
+ * a bounded queue drained by one background thread; once the queue is 80% full INFO and lower events
+ * are discarded, and when it is completely full every event is.
+ * <p>
+ * Full-queue drops are detected from the remaining capacity just before the offer, so under heavy
+ * contention the count is approximate.
+ */
+public class DroppingAsyncAppender extends AsyncAppender {
+
+    private final LongAdder dropped = new LongAdder();
+
+    public DroppingAsyncAppender() {
+        setNeverBlock(true);
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (getRemainingCapacity() == 0 && !super.isDiscardable(event)) {
+            dropped.increment();
+        }
+        super.append(event);
+    }
+
+    // only consulted once the queue is past the discarding threshold
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            dropped.increment();
+        }
+        return discardable;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,44 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.logging;
+
+import java.util.Iterator;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the state of every {@link DroppingAsyncAppender} on the root logger:
+ * {@code logback.async.dropped} (events discarded) and {@code logback.async.queue.size} (events waiting),
+ * tagged with the appender name.
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof DroppingAsyncAppender appender) {
+                FunctionCounter.builder("logback.async.dropped", appender, DroppingAsyncAppender::getDroppedCount)
+                        .description("Log events discarded because the async queue was (nearly) full")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+                Gauge.builder("logback.async.queue.size", appender, DroppingAsyncAppender::getNumberOfElementsInQueue)
+                        .description("Log events waiting to be written")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Lets through one in {@code rate} INFO-and-lower log calls per message template from loggers under
+ * {@code loggerPrefix}; WARN and ERROR always pass. Turbo filters run before a logging event is created,
+ * so a sampled-out call costs a map lookup and an increment, with no event, formatting or queueing.
+ * Templates are compile-time constants, so the map stays small.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final ConcurrentHashMap<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+    private String loggerPrefix = "";
+    private int rate = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks, which must not consume a sample
+        if (rate <= 1 || format == null || level.isGreaterOrEqual(Level.WARN) || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        long n = calls.computeIfAbsent(format, f -> new AtomicLong()).getAndIncrement();
+        return n % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,84 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models;
+
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * One change to a patient or reading, as served by {@code GET /changes}. Entries are only ever inserted, by
+ * the repositories' write methods in the same transaction as the change; the id is the feed cursor.
+ */
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "idx_change_log_recorded_at", columnList = "recorded_at"))
+public class ChangeLogEntry {
+
+    public enum Type { PATIENT, CLINICAL_DATA }
+
+    // UPSERT covers inserts and updates: either way the client fetches or receives the current row
+    public enum Operation { UPSERT, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    // the patient itself for PATIENT entries
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Operation operation;
+
+    @Column(name = "recorded_at", nullable = false)
+    private Timestamp recordedAt;
+
+    protected ChangeLogEntry() {
+    }
+
+    public ChangeLogEntry(Type type, Long entityId, Long patientId, Operation operation, Timestamp recordedAt) {
+        this.type = type;
+        this.entityId = entityId;
+        this.patientId = patientId;
+        this.operation = operation;
+        this.recordedAt = recordedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Timestamp getRecordedAt() {
+        return recordedAt;
+    }
+}
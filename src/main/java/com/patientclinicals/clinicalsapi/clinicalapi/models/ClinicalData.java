@@ -5,34 +5,67 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 
 import java.sql.Timestamp;
 import java.util.Objects;
 
-import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "clinicaldata")
+@Table(name = "clinicaldata", indexes = {
+        @Index(name = "idx_clinicaldata_patient_component_time", columnList = "patient_id, component_name, measured_date_time"),
+        @Index(name = "idx_clinicaldata_patient_time", columnList = "patient_id, measured_date_time")})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "clinicalData")
 public class ClinicalData {
 
+    // pooled block allocation (see V2__clinicaldata_id_generator.sql); unlike IDENTITY it lets Hibernate batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "clinicaldata_id")
+    @TableGenerator(name = "clinicaldata_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "clinicaldata", allocationSize = 50)
     private Long id;
 
     @Column(name = "component_name", nullable = false)
     private String componentName;
 
+    // raw value as entered, kept for display
     @Column(name = "component_value", nullable = false)
     private String componentValue;
 
-    @CreationTimestamp
+    // numeric reading of componentValue, derived on every write (see NumericValue); the secondary part
+    // is only set for compound values such as blood pressure ("120/80" -> 120, 80)
+    @Column(name = "primary_value")
+    @JsonIgnore
+    private Double primaryValue;
+
+    @Column(name = "secondary_value")
+    @JsonIgnore
+    private Double secondaryValue;
+
+    // defaults to the insert time; readings replayed from the spool or imported keep their original time
     @Column(name = "measured_date_time", nullable = false)
     private Timestamp measuredDateTime;
+
+    // idempotency key for readings written through the ingest spool; null for direct writes
+    @Column(name = "ingest_key", length = 36, unique = true)
+    @JsonIgnore
+    private String ingestKey;
+
+    // optimistic lock, sent as the ETag header rather than in the body
+    @Version
+    @JsonIgnore
+    private Long version;
     
     @ManyToOne(fetch = jakarta.persistence.FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
@@ -79,6 +112,30 @@ public class ClinicalData {
         this.measuredDateTime = measuredDateTime;
     }
 
+    public Double getPrimaryValue() {
+        return primaryValue;
+    }
+
+    public Double getSecondaryValue() {
+        return secondaryValue;
+    }
+
+    public String getIngestKey() {
+        return ingestKey;
+    }
+
+    public void setIngestKey(String ingestKey) {
+        this.ingestKey = ingestKey;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Patient getPatient() {
         return patient;
     }
@@ -86,6 +143,21 @@ public class ClinicalData {
         this.patient = patient;
     }
 
+    @PrePersist
+    void beforeInsert() {
+        if (measuredDateTime == null) {
+            measuredDateTime = new Timestamp(System.currentTimeMillis());
+        }
+        normalizeValue();
+    }
+
+    @PreUpdate
+    void normalizeValue() {
+        NumericValue numeric = NumericValue.parse(componentValue);
+        primaryValue = numeric.primary();
+        secondaryValue = numeric.secondary();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,27 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Numeric reading of a raw component value: {@code "72"} -> (72, null), {@code "120/80"} -> (120, 80).
+ * Values that are not one number or two numbers separated by {@code /} have no numeric reading.
+ */
+public record NumericValue(Double primary, Double secondary) {
+
+    public static final NumericValue NONE = new NumericValue(null, null);
+
+    private static final Pattern NUMBER_OR_PAIR =
+            Pattern.compile("\\s*([-+]?\\d+(?:\\.\\d+)?)\\s*(?:/\\s*([-+]?\\d+(?:\\.\\d+)?)\\s*)?");
+
+    public static NumericValue parse(String raw) {
+        if (raw == null) {
+            return NONE;
+        }
+        Matcher m = NUMBER_OR_PAIR.matcher(raw);
+        if (!m.matches()) {
+            return NONE;
+        }
+        return new NumericValue(Double.valueOf(m.group(1)), m.group(2) == null ? null : Double.valueOf(m.group(2)));
+    }
+}
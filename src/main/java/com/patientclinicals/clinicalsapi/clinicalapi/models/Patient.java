@@ -10,10 +10,16 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 @Table(name = "patient")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patient")
 public class Patient {
 
     @Id
@@ -29,7 +35,14 @@ public class Patient {
     @Column(nullable = false)
     private Integer age;
 
-    @OneToMany(mappedBy = "patient", cascade = jakarta.persistence.CascadeType.ALL, fetch=jakarta.persistence.FetchType.EAGER)
+    // optimistic lock, sent as the ETag header rather than in the body
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    // loaded only through an explicit fetch plan (see PatientRepository#findWithClinicalDataById)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patient.clinicalData")
+    @OneToMany(mappedBy = "patient", cascade = jakarta.persistence.CascadeType.ALL, fetch = jakarta.persistence.FetchType.LAZY)
     private List<ClinicalData> clinicalData;
 
     public Patient() {}
@@ -71,6 +84,23 @@ public class Patient {
         this.age = age;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @JsonIgnore
+    public List<ClinicalData> getClinicalData() {
+        return clinicalData;
+    }
+
+    public void setClinicalData(List<ClinicalData> clinicalData) {
+        this.clinicalData = clinicalData;
+    }
+
     @Override
     public String toString() {
         return "Patient{" +
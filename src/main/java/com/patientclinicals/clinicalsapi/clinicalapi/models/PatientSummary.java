@@ -0,0 +1,16 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models;
+
+import java.sql.Timestamp;
+
+/**
+ * Read-only projection of a patient with aggregate facts about its readings,
+ * computed in a single grouped query instead of loading the reading history.
+ */
+public record PatientSummary(
+        Long id,
+        String firstName,
+        String lastName,
+        Integer age,
+        long readingCount,
+        Timestamp latestReadingTime) {
+}
@@ -0,0 +1,10 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models;
+
+import java.sql.Timestamp;
+
+/**
+ * One reading as written by the CSV export; a projection, so streamed rows are never managed entities.
+ */
+public record ReadingExportRow(Long id, Long patientId, String componentName, String componentValue,
+                               Timestamp measuredDateTime) {
+}
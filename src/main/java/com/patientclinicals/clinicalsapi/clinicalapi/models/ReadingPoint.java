@@ -0,0 +1,9 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models;
+
+import java.sql.Timestamp;
+
+/**
+ * Id, time and raw value of one reading, without the entity.
+ */
+public record ReadingPoint(Long id, Timestamp measuredDateTime, String componentValue) {
+}
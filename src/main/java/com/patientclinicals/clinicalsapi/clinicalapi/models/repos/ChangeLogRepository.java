@@ -0,0 +1,30 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models.repos;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry;
+
+/**
+ * Read side of the change feed; entries are written by {@link PatientRepository} and
+ * {@link ClinicalDataRepository} together with the changes they record.
+ */
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    // keyset page after the cursor; the caller cuts it at the first entry that has not settled yet
+    List<ChangeLogEntry> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // the lowest id recorded after `settled`: the stamp precedes the insert that assigns the id, so entries below
+    // a higher, settled one can still be unsettled. A range scan on idx_change_log_recorded_at over the recent tail
+    @Query("select min(c.id) from ChangeLogEntry c where c.recordedAt > :settled")
+    Optional<Long> findFirstUnsettledId(Timestamp settled);
+
+    Optional<ChangeLogEntry> findFirstByOrderByIdDesc();
+}
@@ -1,10 +1,205 @@
 package com.patientclinicals.clinicalsapi.clinicalapi.models.repos;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.patientclinicals.clinicalsapi.clinicalapi.analytics.BucketAggregate;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.NumericValue;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ReadingExportRow;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ReadingPoint;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface ClinicalDataRepository extends JpaRepository<ClinicalData, Long> {
-}
\ No newline at end of file
+
+    // ingest keys among the given ones that are already stored (idempotent spool replay)
+    @Query("select c.ingestKey from ClinicalData c where c.ingestKey in :keys")
+    Set<String> findExistingIngestKeys(Collection<String> keys);
+
+    // the patient a reading belongs to, without loading either entity
+    @Query("select c.patient.id from ClinicalData c where c.id = :id")
+    Optional<Long> findPatientIdById(Long id);
+
+    // current @Version of a reading, for conditional requests that do not need the entity;
+    // served from the query cache until the next write to the table
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select c.version from ClinicalData c where c.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    // each component's most recent reading(s) for one patient; equal timestamps can yield several rows per component
+    @Query("""
+            select c from ClinicalData c
+            where c.patient.id = :patientId
+              and c.measuredDateTime = (
+                select max(c2.measuredDateTime) from ClinicalData c2
+                where c2.patient.id = :patientId and c2.componentName = c.componentName)
+            """)
+    List<ClinicalData> findLatestPerComponent(Long patientId);
+
+    // keyset page of one component's readings in (measuredDateTime, id) order, starting after the
+    // (afterTime, afterId) cursor and before `to`; a range scan on idx_clinicaldata_patient_component_time.
+    // history reads skip the second-level cache so they do not push out hot entries
+    @QueryHints({
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("""
+            select c from ClinicalData c
+            where c.patient.id = :patientId and c.componentName = :component
+              and c.measuredDateTime >= :afterTime and c.measuredDateTime < :to
+              and (c.measuredDateTime > :afterTime or c.id > :afterId)
+            order by c.measuredDateTime, c.id
+            """)
+    List<ClinicalData> findComponentRange(Long patientId, String component, Timestamp afterTime, Long afterId,
+                                          Timestamp to, Limit limit);
+
+    // same as findComponentRange across all components; a range scan on idx_clinicaldata_patient_time
+    @QueryHints({
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("""
+            select c from ClinicalData c
+            where c.patient.id = :patientId
+              and c.measuredDateTime >= :afterTime and c.measuredDateTime < :to
+              and (c.measuredDateTime > :afterTime or c.id > :afterId)
+            order by c.measuredDateTime, c.id
+            """)
+    List<ClinicalData> findRange(Long patientId, Timestamp afterTime, Long afterId, Timestamp to, Limit limit);
+
+    // per-bucket aggregates of one component in [from, to); bucket = whole intervals between `from` and the
+    // reading, both converted with the database's own epoch (whole seconds) so the session time zone cancels out
+    @Query("""
+            select new com.patientclinicals.clinicalsapi.clinicalapi.analytics.BucketAggregate(
+                cast(floor((extract(epoch from c.measuredDateTime) - extract(epoch from :from)) / :intervalSeconds) as Long)
+                    as bucket,
+                count(c), min(c.primaryValue), max(c.primaryValue), avg(c.primaryValue),
+                min(c.secondaryValue), max(c.secondaryValue), avg(c.secondaryValue), max(c.measuredDateTime))
+            from ClinicalData c
+            where c.patient.id = :patientId and c.componentName = :component
+              and c.measuredDateTime >= :from and c.measuredDateTime < :to
+            group by bucket
+            order by bucket
+            """)
+    List<BucketAggregate> aggregateBuckets(Long patientId, String component, Timestamp from, Timestamp to,
+                                           long intervalSeconds);
+
+    // readings of one component measured exactly at the given times (the latest reading of each bucket)
+    @Query("""
+            select new com.patientclinicals.clinicalsapi.clinicalapi.models.ReadingPoint(c.id, c.measuredDateTime, c.componentValue)
+            from ClinicalData c
+            where c.patient.id = :patientId and c.componentName = :component and c.measuredDateTime in :times
+            order by c.measuredDateTime, c.id
+            """)
+    List<ReadingPoint> findPointsAt(Long patientId, String component, Collection<Timestamp> times);
+
+    // forward-only cursor over the readings measured in [from, to), in id order, for the CSV export; must be
+    // consumed inside a transaction and closed. Rows are projections, so the persistence context stays empty
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.patientclinicals.clinicalsapi.clinicalapi.models.ReadingExportRow(
+                c.id, c.patient.id, c.componentName, c.componentValue, c.measuredDateTime)
+            from ClinicalData c
+            where c.measuredDateTime >= :from and c.measuredDateTime < :to
+            order by c.id
+            """)
+    Stream<ReadingExportRow> streamExportRows(Timestamp from, Timestamp to);
+
+    // Targeted writes: one statement each, no load or merge first. The affected row count is 0 when the
+    // reading does not exist (or, with a version, has another one). Bulk statements bypass the persistence
+    // context; Hibernate evicts the clinicalData cache regions and the dependent query results when they commit.
+    // Each write also records a change_log entry (GET /changes) in its transaction; use these rather than save
+
+    @Transactional
+    default ClinicalData create(ClinicalData clinicalData) {
+        ClinicalData saved = save(clinicalData);
+        logChanges(List.of(saved.getId()), ChangeLogEntry.Operation.UPSERT, new Timestamp(System.currentTimeMillis()));
+        return saved;
+    }
+
+    // null arguments leave the column unchanged; a null version updates whatever version is stored.
+    // Bulk updates skip ClinicalData's @PreUpdate, so the numeric reading is derived here
+    @Transactional
+    default int updateById(Long id, Long version, String componentName, String componentValue,
+                           Timestamp measuredDateTime) {
+        NumericValue numeric = NumericValue.parse(componentValue);
+        int updated = updateColumnsById(id, version, componentName, componentValue, numeric.primary(),
+                numeric.secondary(), measuredDateTime);
+        if (updated > 0) {
+            logChanges(List.of(id), ChangeLogEntry.Operation.UPSERT, new Timestamp(System.currentTimeMillis()));
+        }
+        return updated;
+    }
+
+    // recorded first: the entry is selected from the row being deleted
+    @Transactional
+    default int removeById(Long id) {
+        logChanges(List.of(id), ChangeLogEntry.Operation.DELETE, new Timestamp(System.currentTimeMillis()));
+        return removeRowById(id);
+    }
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update ClinicalData c
+            set c.componentName = coalesce(:componentName, c.componentName),
+                c.componentValue = coalesce(:componentValue, c.componentValue),
+                c.primaryValue = case when :componentValue is null then c.primaryValue else :primaryValue end,
+                c.secondaryValue = case when :componentValue is null then c.secondaryValue else :secondaryValue end,
+                c.measuredDateTime = coalesce(:measuredDateTime, c.measuredDateTime),
+                c.version = c.version + 1
+            where c.id = :id and (:version is null or c.version = :version)
+            """)
+    int updateColumnsById(Long id, Long version, String componentName, String componentValue, Double primaryValue,
+                          Double secondaryValue, Timestamp measuredDateTime);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ClinicalData c where c.id = :id")
+    int removeRowById(Long id);
+
+    // background patient purge; not recorded, the patient's DELETE entry covers its readings
+    @Modifying
+    @Transactional
+    @Query("delete from ClinicalData c where c.id in :ids")
+    int removeAllByIdIn(Collection<Long> ids);
+
+    // insert-select, so nothing is recorded for readings that do not exist; also called by the batch ingest
+    // after each flush. A JPQL insert only invalidates the change_log table, a native one every cache region
+    @Modifying
+    @Transactional
+    @Query("""
+            insert into ChangeLogEntry (type, entityId, patientId, operation, recordedAt)
+            select com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry.Type.CLINICAL_DATA, c.id,
+                c.patient.id, :operation, :recordedAt
+            from ClinicalData c where c.id in :ids
+            """)
+    int logChanges(Collection<Long> ids, ChangeLogEntry.Operation operation, Timestamp recordedAt);
+
+    long countByPatientId(Long patientId);
+
+    // ids of a patient's readings in index order, no sort; the page offset bounds how far the index is read
+    @Query("select c.id from ClinicalData c where c.patient.id = :patientId")
+    List<Long> findIdsByPatientId(Long patientId, Pageable page);
+}
@@ -1,10 +1,150 @@
 package com.patientclinicals.clinicalsapi.clinicalapi.models.repos;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.PatientSummary;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
-}
\ No newline at end of file
+
+    // keyset page: patients with id strictly greater than the cursor, in id order
+    List<Patient> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // forward-only cursor over every patient; must be consumed inside a transaction and closed.
+    // bypasses the second-level cache so a full export does not evict the hot entries
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Patient> streamAllByOrderByIdAsc();
+
+    // result ids go to the query cache, the patients themselves to the patient region
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Patient> findByLastNameIgnoreCaseOrderByFirstNameAscIdAsc(String lastName, Limit limit);
+
+    // opt-in fetch plan: patient and its readings in one joined select
+    @EntityGraph(attributePaths = "clinicalData")
+    Optional<Patient> findWithClinicalDataById(Long id);
+
+    @Query("""
+            select new com.patientclinicals.clinicalsapi.clinicalapi.models.PatientSummary(
+                p.id, p.firstName, p.lastName, p.age, count(c.id), max(c.measuredDateTime))
+            from Patient p left join p.clinicalData c
+            where p.id = :id
+            group by p.id, p.firstName, p.lastName, p.age
+            """)
+    Optional<PatientSummary> findSummaryById(Long id);
+
+    @Query("""
+            select new com.patientclinicals.clinicalsapi.clinicalapi.models.PatientSummary(
+                p.id, p.firstName, p.lastName, p.age, count(c.id), max(c.measuredDateTime))
+            from Patient p left join p.clinicalData c
+            where p.id > :after
+            group by p.id, p.firstName, p.lastName, p.age
+            order by p.id
+            """)
+    List<PatientSummary> findSummariesAfter(Long after, Limit limit);
+
+    // current @Version of a patient, for conditional requests that do not need the entity;
+    // served from the query cache until the next write to the table
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select p.version from Patient p where p.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    // which of the given ids exist, in one query (used to validate batched readings)
+    @Query("select p.id from Patient p where p.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    // every patient id, for bulk imports that check their rows against the whole table in memory
+    @Query("select p.id from Patient p")
+    List<Long> findAllIds();
+
+    // Targeted writes: one statement each, no load or merge first. The affected row count is 0 when the
+    // patient does not exist (or, with a version, has another one). Bulk statements bypass the persistence
+    // context; Hibernate evicts the patient cache region and the dependent query results when they commit.
+    // Each write also records a change_log entry (GET /changes) in its transaction; use these rather than save
+
+    @Transactional
+    default Patient create(Patient patient) {
+        Patient saved = save(patient);
+        logChange(saved.getId(), ChangeLogEntry.Operation.UPSERT, new Timestamp(System.currentTimeMillis()));
+        return saved;
+    }
+
+    // null arguments leave the column unchanged; a null version updates whatever version is stored
+    @Transactional
+    default int updateById(Long id, Long version, String firstName, String lastName, Integer age) {
+        int updated = updateColumnsById(id, version, firstName, lastName, age);
+        if (updated > 0) {
+            logChange(id, ChangeLogEntry.Operation.UPSERT, new Timestamp(System.currentTimeMillis()));
+        }
+        return updated;
+    }
+
+    // the foreign key has no ON DELETE CASCADE, so the readings go first, in the same transaction. The
+    // patient's DELETE entry stands for its readings too, which get no entries of their own
+    @Transactional
+    default int removeWithClinicalDataById(Long id) {
+        logChange(id, ChangeLogEntry.Operation.DELETE, new Timestamp(System.currentTimeMillis()));
+        deleteClinicalDataByPatientId(id);
+        return removeById(id);
+    }
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update Patient p
+            set p.firstName = coalesce(:firstName, p.firstName),
+                p.lastName = coalesce(:lastName, p.lastName),
+                p.age = coalesce(:age, p.age),
+                p.version = p.version + 1
+            where p.id = :id and (:version is null or p.version = :version)
+            """)
+    int updateColumnsById(Long id, Long version, String firstName, String lastName, Integer age);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ClinicalData c where c.patient.id = :patientId")
+    int deleteClinicalDataByPatientId(Long patientId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Patient p where p.id = :id")
+    int removeById(Long id);
+
+    // insert-select, so nothing is recorded for a patient that does not exist. A JPQL insert only invalidates
+    // the change_log table; a native one would evict every second-level cache region
+    @Modifying
+    @Transactional
+    @Query("""
+            insert into ChangeLogEntry (type, entityId, patientId, operation, recordedAt)
+            select com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry.Type.PATIENT, p.id, p.id,
+                :operation, :recordedAt
+            from Patient p where p.id = :id
+            """)
+    int logChange(Long id, ChangeLogEntry.Operation operation, Timestamp recordedAt);
+}
@@ -0,0 +1,103 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.perf;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.ClinicalDataIngestService;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+/**
+ * Fills an empty database with synthetic patients and readings when the {@code perf} profile is active
+ * (N patients x M readings per component). Readings go through {@link ClinicalDataIngestService}, the
+ * same batched path as {@code POST /clinicaldata/clinicals/batch}. Neither patients nor readings get
+ * change_log entries. A database that already holds patients is left alone.
+ */
+@Component
+@Profile("perf")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    static final int CHUNK_SIZE = 5000;
+
+    private static final String[] FIRST_NAMES = {"Ada", "Alan", "Barbara", "Claude", "Donald", "Edsger", "Frances",
+            "Grace", "John", "Katherine", "Linus", "Margaret", "Niklaus", "Radia", "Tim"};
+    private static final String[] LAST_NAMES = {"Allen", "Backus", "Dijkstra", "Hamilton", "Hopper", "Johnson",
+            "Knuth", "Liskov", "Lovelace", "McCarthy", "Perlman", "Ritchie", "Shannon", "Turing", "Wirth"};
+
+    private final SyntheticDataProperties properties;
+    private final PatientRepository patientRepository;
+    private final ClinicalDataIngestService ingestService;
+
+    public SyntheticDataGenerator(SyntheticDataProperties properties, PatientRepository patientRepository,
+                                  ClinicalDataIngestService ingestService) {
+        this.properties = properties;
+        this.patientRepository = patientRepository;
+        this.ingestService = ingestService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (patientRepository.count() > 0) {
+            logger.info("Database already holds patients, skipping synthetic data");
+            return;
+        }
+        long started = System.nanoTime();
+        Random random = new Random(properties.seed());
+        long now = System.currentTimeMillis();
+        long intervalMillis = properties.interval().toMillis();
+        long readings = 0;
+
+        List<ClinicalDataRequest> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int p = 0; p < properties.patients(); p++) {
+            Patient patient = patientRepository.save(new Patient(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)], 18 + random.nextInt(80)));
+            for (String component : properties.components()) {
+                for (int i = properties.readingsPerComponent() - 1; i >= 0; i--) {
+                    ClinicalDataRequest request = new ClinicalDataRequest();
+                    request.setPatientId(patient.getId());
+                    request.setComponentName(component);
+                    request.setComponentValue(value(component, random));
+                    request.setMeasuredDateTime(new Timestamp(now - i * intervalMillis));
+                    chunk.add(request);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        readings += flush(chunk);
+                    }
+                }
+            }
+        }
+        readings += flush(chunk);
+        logger.info("Generated {} patients and {} readings in {} ms", properties.patients(), readings,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private int flush(List<ClinicalDataRequest> chunk) {
+        int size = chunk.size();
+        if (size > 0) {
+            ingestService.insertAllUnlogged(chunk);
+            chunk.clear();
+        }
+        return size;
+    }
+
+    static String value(String component, Random random) {
+        return switch (component) {
+            case "hr" -> Integer.toString(55 + random.nextInt(50));
+            case "bp" -> (100 + random.nextInt(50)) + "/" + (60 + random.nextInt(35));
+            case "temp" -> String.format(Locale.ROOT, "%.1f", 36.0 + random.nextInt(30) / 10.0);
+            default -> Integer.toString(random.nextInt(1000));
+        };
+    }
+}
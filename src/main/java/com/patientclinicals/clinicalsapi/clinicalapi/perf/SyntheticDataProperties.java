@@ -0,0 +1,25 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.perf;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link SyntheticDataGenerator} ({@code clinicals.perf.data.*}).
+ *
+ * @param patients              patients to create
+ * @param readingsPerComponent  readings per patient and component, spaced {@code interval} apart and ending now
+ * @param components            component names; {@code hr}, {@code bp} and {@code temp} get realistic values
+ * @param interval              time between consecutive readings of one component
+ * @param seed                  random seed, so two runs with the same settings produce the same data
+ */
+@ConfigurationProperties("clinicals.perf.data")
+public record SyntheticDataProperties(
+        @DefaultValue("1000") int patients,
+        @DefaultValue("100") int readingsPerComponent,
+        @DefaultValue({"hr", "bp", "temp"}) List<String> components,
+        @DefaultValue("5m") Duration interval,
+        @DefaultValue("42") long seed) {
+}
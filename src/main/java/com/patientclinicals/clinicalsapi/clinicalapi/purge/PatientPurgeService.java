@@ -0,0 +1,162 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.purge;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataModifiedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.BackgroundJob;
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.JobRunner;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.purge.PurgeStatus.State;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Deletes patients with long histories in the background: the readings go in chunks of
+ * {@code chunkSize}, each its own short transaction, and the patient last. One purge runs at a time, so
+ * a purge holds at most one connection and never a long transaction.
+ * <p>
+ * The patient stays readable until its purge completes. A purge cut short by shutdown or an error leaves
+ * the remaining readings in place; deleting the patient again starts over.
+ */
+@Component
+public class PatientPurgeService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientPurgeService.class);
+
+    private final PurgeProperties properties;
+    private final PatientRepository patientRepository;
+    private final ClinicalDataRepository clinicalDataRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter deletedReadings;
+    private final JobRunner<Long, Job> jobs = new JobRunner<>("patient-purge");
+
+    public PatientPurgeService(PurgeProperties properties, PatientRepository patientRepository,
+                               ClinicalDataRepository clinicalDataRepository, ApplicationEventPublisher eventPublisher,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.patientRepository = patientRepository;
+        this.clinicalDataRepository = clinicalDataRepository;
+        this.eventPublisher = eventPublisher;
+        this.deletedReadings = Counter.builder("clinicals.purge.readings.deleted")
+                .description("Readings deleted by background patient purges")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the patient has more than {@code asyncThreshold} readings. Looks for the reading past the
+     * threshold, so the cost is bounded by the threshold rather than the history.
+     */
+    public boolean isLarge(Long patientId) {
+        return !clinicalDataRepository.findIdsByPatientId(patientId, PageRequest.of(properties.asyncThreshold(), 1))
+                .isEmpty();
+    }
+
+    public boolean isPurging(Long patientId) {
+        return jobs.get(patientId).filter(job -> !job.status().isFinished()).isPresent();
+    }
+
+    public Optional<PurgeStatus> status(Long patientId) {
+        return jobs.get(patientId).map(Job::status);
+    }
+
+    /**
+     * Queues a purge of the patient, or returns the one already queued or running.
+     */
+    public PurgeStatus submit(Long patientId) {
+        jobs.removeExpired(properties.statusRetention(), job -> { });
+
+        Job created = new Job(patientId);
+        Job job = jobs.register(patientId, created);
+        if (job == created && !jobs.execute(job, this::run)) {
+            job.fail("Purges are not accepted while shutting down");
+        }
+        return job.status();
+    }
+
+    private void run(Job job) {
+        Long patientId = job.patientId;
+        try {
+            job.start(clinicalDataRepository.countByPatientId(patientId));
+            List<Long> chunk;
+            while (jobs.isRunning() && !(chunk = clinicalDataRepository.findIdsByPatientId(patientId,
+                    PageRequest.of(0, properties.chunkSize()))).isEmpty()) {
+                int deleted = clinicalDataRepository.removeAllByIdIn(chunk);
+                job.progress(deleted);
+                deletedReadings.increment(deleted);
+            }
+            if (!jobs.isRunning()) {
+                job.fail("Interrupted by shutdown after " + job.status().deleted() + " readings");
+                return;
+            }
+            // readings that arrived during the purge go in the same transaction as the patient
+            patientRepository.removeWithClinicalDataById(patientId);
+            job.complete();
+            logger.info("Purged patient {} ({} readings)", patientId, job.status().deleted());
+        } catch (RuntimeException e) {
+            logger.error("Purge of patient {} failed after {} readings", patientId, job.status().deleted(), e);
+            job.fail(e.getMessage());
+        } finally {
+            eventPublisher.publishEvent(ClinicalDataModifiedEvent.of(patientId));
+        }
+    }
+
+    @Override
+    public void start() {
+        jobs.start();
+    }
+
+    @Override
+    public void stop() {
+        // the running purge stops after its current chunk, queued ones without starting
+        jobs.stop(Duration.ofSeconds(30), false);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return jobs.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        return JobRunner.PHASE;
+    }
+
+    private static final class Job extends BackgroundJob<PurgeStatus> {
+
+        private final Long patientId;
+
+        Job(Long patientId) {
+            super(new PurgeStatus(patientId, State.QUEUED, null, 0, null, null, null));
+            this.patientId = patientId;
+        }
+
+        void start(long total) {
+            update(s -> new PurgeStatus(patientId, State.RUNNING, total, 0, Instant.now(), null, null));
+        }
+
+        void progress(int deleted) {
+            update(s -> new PurgeStatus(patientId, s.state(), s.total(), s.deleted() + deleted, s.startedAt(), null, null));
+        }
+
+        void complete() {
+            update(s -> new PurgeStatus(patientId, State.COMPLETED, s.total(), s.deleted(), s.startedAt(), Instant.now(), null));
+        }
+
+        @Override
+        protected PurgeStatus failed(PurgeStatus s, String error) {
+            return new PurgeStatus(patientId, State.FAILED, s.total(), s.deleted(), s.startedAt(), Instant.now(), error);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.purge;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link PatientPurgeService} ({@code clinicals.purge.*}).
+ *
+ * @param asyncThreshold  patients with more readings than this are purged in the background
+ * @param chunkSize       readings deleted per statement and transaction by a background purge
+ * @param statusRetention how long the status of a finished purge stays available
+ */
+@ConfigurationProperties("clinicals.purge")
+public record PurgeProperties(
+        @DefaultValue("10000") int asyncThreshold,
+        @DefaultValue("5000") int chunkSize,
+        @DefaultValue("1h") Duration statusRetention) {
+}
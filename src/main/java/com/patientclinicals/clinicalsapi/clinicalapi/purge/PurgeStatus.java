@@ -0,0 +1,29 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.purge;
+
+import java.time.Instant;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.jobs.JobStatus;
+
+/**
+ * Progress of a background patient purge, as returned by {@code GET /patients/{id}/purge}.
+ *
+ * @param total   readings the patient had when the purge started (null until counted)
+ * @param deleted readings deleted so far
+ * @param error   why the purge stopped, for {@link State#FAILED}
+ */
+public record PurgeStatus(
+        Long patientId,
+        State state,
+        Long total,
+        long deleted,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) implements JobStatus {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    @Override
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+}
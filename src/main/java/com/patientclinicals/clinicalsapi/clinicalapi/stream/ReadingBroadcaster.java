@@ -0,0 +1,270 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.stream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataSavedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pushes newly stored readings to Server-Sent Event subscribers of their patient (optionally of one
+ * component). Writers only append to each subscriber's bounded queue; the queue is sent from a virtual thread
+ * per busy subscriber, so a slow or stalled client ties up nothing but its own thread. When a queue is full
+ * the oldest queued reading of the same component is replaced (or, failing that, the oldest reading
+ * dropped), so a client that falls behind still ends up with the latest value of every component.
+ * <p>
+ * Idle streams are parked servlet async requests and hold no thread; a keep-alive comment every
+ * {@code heartbeatInterval} keeps proxies from closing them and notices clients that went away.
+ */
+@Component
+public class ReadingBroadcaster implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadingBroadcaster.class);
+
+    private final ReadingStreamProperties properties;
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter coalesced;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private ExecutorService senders;
+    private ScheduledExecutorService heartbeat;
+
+    public ReadingBroadcaster(ReadingStreamProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.coalesced = Counter.builder("clinicals.stream.readings.coalesced")
+                .description("Queued readings replaced by a newer reading of the same component")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("clinicals.stream.readings.dropped")
+                .description("Queued readings dropped from a full subscriber queue")
+                .register(meterRegistry);
+        Gauge.builder("clinicals.stream.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of the patient's new readings, only those of {@code component} when it is not null.
+     * Empty when {@code maxSubscribers} streams are already open or the application is shutting down.
+     */
+    public Optional<SseEmitter> subscribe(long patientId, String component) {
+        if (!running) {
+            return Optional.empty();
+        }
+        if (subscriberCount.incrementAndGet() > properties.maxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+        Subscriber subscriber = new Subscriber(patientId, component, emitter);
+        subscribers.compute(patientId, (id, set) -> {
+            Set<Subscriber> result = set == null ? ConcurrentHashMap.newKeySet() : set;
+            result.add(subscriber);
+            return result;
+        });
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> emitter.complete());
+        return Optional.of(emitter);
+    }
+
+    // runs on the writing thread (after commit), so it must not block: enqueue and hand off
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaved(ClinicalDataSavedEvent event) {
+        for (ClinicalData reading : event.readings()) {
+            if (reading.getPatient() == null || reading.getPatient().getId() == null) {
+                continue;
+            }
+            Set<Subscriber> set = subscribers.get(reading.getPatient().getId());
+            if (set == null) {
+                continue;
+            }
+            for (Subscriber subscriber : set) {
+                if (subscriber.component == null || subscriber.component.equals(reading.getComponentName())) {
+                    switch (subscriber.offer(reading, properties.queueCapacity())) {
+                        case COALESCED -> coalesced.increment();
+                        case DROPPED -> dropped.increment();
+                        case NONE -> { }
+                    }
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscribers.computeIfPresent(subscriber.patientId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    // at most one send in flight per subscriber; a reading queued meanwhile is picked up by that send
+    private void schedule(Subscriber subscriber) {
+        if (running && subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            List<ClinicalData> batch;
+            while (!(batch = subscriber.drain()).isEmpty()) {
+                for (ClinicalData reading : batch) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(reading.getId()))
+                            .name("reading")
+                            .data(reading));
+                }
+                subscriber.lastSentNanos = System.nanoTime();
+            }
+            if (subscriber.heartbeatDue) {
+                subscriber.heartbeatDue = false;
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                subscriber.lastSentNanos = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away or the stream already completed
+            logger.debug("Closing reading stream of patient {}: {}", subscriber.patientId, e.toString());
+            subscriber.emitter.complete();
+            unsubscribe(subscriber);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (subscriber.hasPending()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void sendHeartbeats() {
+        long idleNanos = properties.heartbeatInterval().toNanos();
+        long now = System.nanoTime();
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                if (now - subscriber.lastSentNanos >= idleNanos) {
+                    subscriber.heartbeatDue = true;
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("reading-stream-", 0).factory());
+        heartbeat = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("reading-stream-heartbeat").daemon().factory());
+        long interval = properties.heartbeatInterval().toMillis();
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        heartbeat.shutdownNow();
+        // completing the streams tells EventSource clients to reconnect, to another instance if there is one
+        List<Subscriber> open = new ArrayList<>();
+        subscribers.values().forEach(open::addAll);
+        open.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdown();
+        try {
+            senders.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stop before the web server's graceful shutdown (DEFAULT_PHASE - 1024), which waits for open async
+        // requests: completing the streams first lets it finish at once and clients reconnect elsewhere. Until
+        // this has started, and once it stops, subscriptions are refused
+        return SmartLifecycle.DEFAULT_PHASE - 512;
+    }
+
+    enum Overflow { NONE, COALESCED, DROPPED }
+
+    static final class Subscriber {
+
+        private final long patientId;
+        private final String component;
+        private final SseEmitter emitter;
+        private final ArrayDeque<ClinicalData> pending = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        private volatile long lastSentNanos = System.nanoTime();
+
+        Subscriber(long patientId, String component, SseEmitter emitter) {
+            this.patientId = patientId;
+            this.component = component;
+            this.emitter = emitter;
+        }
+
+        synchronized Overflow offer(ClinicalData reading, int capacity) {
+            Overflow overflow = Overflow.NONE;
+            if (pending.size() >= capacity) {
+                overflow = Overflow.DROPPED;
+                for (Iterator<ClinicalData> it = pending.iterator(); it.hasNext(); ) {
+                    if (it.next().getComponentName().equals(reading.getComponentName())) {
+                        it.remove();
+                        overflow = Overflow.COALESCED;
+                        break;
+                    }
+                }
+                if (overflow == Overflow.DROPPED) {
+                    pending.removeFirst();
+                }
+            }
+            pending.addLast(reading);
+            return overflow;
+        }
+
+        synchronized List<ClinicalData> drain() {
+            List<ClinicalData> batch = new ArrayList<>(pending);
+            pending.clear();
+            return batch;
+        }
+
+        synchronized boolean hasPending() {
+            return !pending.isEmpty();
+        }
+    }
+}
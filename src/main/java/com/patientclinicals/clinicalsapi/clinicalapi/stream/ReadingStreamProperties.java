@@ -0,0 +1,22 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.stream;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link ReadingBroadcaster} ({@code clinicals.stream.*}).
+ *
+ * @param maxSubscribers    open streams allowed at once; further subscriptions get 503
+ * @param queueCapacity     readings held per subscriber that has not caught up; beyond it they are coalesced
+ * @param heartbeatInterval how long a stream may stay silent before a keep-alive comment is sent
+ * @param timeout           how long a stream stays open; EventSource clients reconnect on their own
+ */
+@ConfigurationProperties("clinicals.stream")
+public record ReadingStreamProperties(
+        @DefaultValue("10000") int maxSubscribers,
+        @DefaultValue("256") int queueCapacity,
+        @DefaultValue("30s") Duration heartbeatInterval,
+        @DefaultValue("30m") Duration timeout) {
+}
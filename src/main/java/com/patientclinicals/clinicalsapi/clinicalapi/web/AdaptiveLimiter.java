@@ -0,0 +1,153 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to the connection pool (AIMD): whenever a request finishes while other
+ * threads are waiting for a connection the limit shrinks by {@value #BACKOFF}, and while the limit has been
+ * fully used since it last changed, each request that finishes with nobody waiting grows it by
+ * {@code 1/limit}, so by about one per {@code limit} requests. Connections taken by background work (write-behind, purges, exports, imports) thereby
+ * lower the number of requests let in instead of making them queue inside the pool.
+ * <p>
+ * Ingest may hold at most {@code ingestShare} of the limit, and a freed slot goes to a waiting read before
+ * a waiting ingest request, so a burst of device writes cannot starve reads.
+ */
+final class AdaptiveLimiter {
+
+    static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double ingestShare;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readSlot = lock.newCondition();
+    private final Condition ingestSlot = lock.newCondition();
+
+    // guarded by lock
+    private double limit;
+    private int inFlight;
+    // most requests in flight at once since the limit last changed; the limit was fully used if it reached it
+    private int peakInFlight;
+    private int ingestInFlight;
+    private int waitingReads;
+    private int waitingIngest;
+
+    AdaptiveLimiter(int minLimit, int maxLimit, double ingestShare) {
+        this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+        this.maxLimit = maxLimit;
+        this.ingestShare = ingestShare;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Waits up to {@code timeoutNanos} for a slot; false when none became free in time.
+     */
+    boolean acquire(TrafficClass trafficClass, long timeoutNanos) throws InterruptedException {
+        long nanos = timeoutNanos;
+        lock.lock();
+        try {
+            if (trafficClass == TrafficClass.READ) {
+                while (inFlight >= currentLimit()) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    waitingReads++;
+                    try {
+                        nanos = readSlot.awaitNanos(nanos);
+                    } finally {
+                        waitingReads--;
+                        // ingest waits behind reads; whether this one got a slot or gave up, let it re-check
+                        if (waitingReads == 0 && waitingIngest > 0 && inFlight < currentLimit()) {
+                            ingestSlot.signal();
+                        }
+                    }
+                }
+            } else {
+                while (inFlight >= currentLimit() || ingestInFlight >= ingestLimit() || waitingReads > 0) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    waitingIngest++;
+                    try {
+                        nanos = ingestSlot.awaitNanos(nanos);
+                    } finally {
+                        waitingIngest--;
+                    }
+                }
+                ingestInFlight++;
+            }
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a slot; {@code congested} tells whether requests were waiting for a connection meanwhile.
+     */
+    void release(TrafficClass trafficClass, boolean congested) {
+        lock.lock();
+        try {
+            boolean saturated = peakInFlight >= currentLimit();
+            inFlight--;
+            if (trafficClass == TrafficClass.INGEST) {
+                ingestInFlight--;
+            }
+            int previous = currentLimit();
+            if (congested) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            if (currentLimit() != previous) {
+                peakInFlight = inFlight;
+            }
+            if (waitingReads > 0) {
+                readSlot.signal();
+            } else if (waitingIngest > 0) {
+                ingestSlot.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private int ingestLimit() {
+        return Math.max(1, (int) (limit * ingestShare));
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int available() {
+        lock.lock();
+        try {
+            return Math.max(0, currentLimit() - inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waitingReads + waitingIngest;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link DatabaseBulkheadFilter} ({@code clinicals.bulkhead.*}).
+ *
+ * @param enabled        limit concurrently executing API requests; meant for virtual-thread request handling,
+ *                       where nothing else bounds them
+ * @param maxConcurrent  most requests allowed in at once; 0 means the connection pool's maximum size
+ * @param minConcurrent  the limit never adapts below this
+ * @param ingestShare    fraction of the current limit that writes may hold, leaving the rest to reads
+ * @param acquireTimeout how long a request waits for a slot before it is rejected with 503
+ */
+@ConfigurationProperties("clinicals.bulkhead")
+public record BulkheadProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0") int maxConcurrent,
+        @DefaultValue("2") int minConcurrent,
+        @DefaultValue("0.5") double ingestShare,
+        @DefaultValue("2s") Duration acquireTimeout) {
+}
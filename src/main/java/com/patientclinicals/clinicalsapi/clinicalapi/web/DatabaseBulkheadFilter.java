@@ -0,0 +1,119 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Bulkhead in front of the API: at most as many requests execute at once as the connection pool has
+ * connections, the rest wait (briefly, reads ahead of writes) for a slot or are turned away with 503.
+ * <p>
+ * With virtual threads Tomcat no longer caps concurrency at its thread count, so without this thousands
+ * of requests would queue inside the pool for a connection, each holding memory and its client until
+ * the pool's own timeout. Waiting here is cheap and the overflow fails fast instead. The limit itself
+ * adapts ({@link AdaptiveLimiter}): it backs off while threads wait for a connection, for instance because
+ * background work holds some, and creeps back up once they stop waiting.
+ */
+@Component
+public class DatabaseBulkheadFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseBulkheadFilter.class);
+
+    static final int FALLBACK_PERMITS = 10;
+
+    private final boolean enabled;
+    private final AdaptiveLimiter limiter;
+    private final IntSupplier connectionWaiters;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+
+    public DatabaseBulkheadFilter(BulkheadProperties properties, DataSource dataSource, MeterRegistry meterRegistry) {
+        int size = properties.maxConcurrent() > 0 ? properties.maxConcurrent() : poolSize(dataSource);
+        this.enabled = properties.enabled();
+        this.limiter = new AdaptiveLimiter(properties.minConcurrent(), size, properties.ingestShare());
+        this.connectionWaiters = connectionWaiters(dataSource);
+        this.acquireTimeoutNanos = properties.acquireTimeout().toNanos();
+        this.rejected = Counter.builder("clinicals.bulkhead.rejected").register(meterRegistry);
+        Gauge.builder("clinicals.bulkhead.limit", limiter, AdaptiveLimiter::limit).register(meterRegistry);
+        Gauge.builder("clinicals.bulkhead.available", limiter, AdaptiveLimiter::available).register(meterRegistry);
+        Gauge.builder("clinicals.bulkhead.waiting", limiter, AdaptiveLimiter::waiting).register(meterRegistry);
+        logger.info("Request bulkhead {} with up to {} permits", enabled ? "enabled" : "disabled", size);
+    }
+
+    static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not determine connection pool size", e);
+        }
+        return FALLBACK_PERMITS;
+    }
+
+    // threads blocked in getConnection() right now; the pool MXBean appears once the pool has started
+    static IntSupplier connectionWaiters(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+                return () -> {
+                    HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                    return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+                };
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not access the connection pool; the bulkhead limit will not adapt", e);
+        }
+        return () -> 0;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // health and metrics must stay reachable while the API is saturated
+        return !enabled || request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TrafficClass trafficClass = TrafficClass.of(request);
+        boolean acquired;
+        try {
+            acquired = limiter.acquire(trafficClass, acquireTimeoutNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(trafficClass, connectionWaiters.getAsInt() > 0);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+/**
+ * Strong ETags derived from an entity's {@code @Version} ({@code "3"}) and the If-None-Match / If-Match
+ * handling of RFC 9110. The version only changes when the row does, so a matching tag can be
+ * answered from a version-only query without loading the entity.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    // null for entities that were never persisted
+    public static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    // If-None-Match: weak comparison, so W/"3" matches "3"
+    public static boolean matchesIfNoneMatch(String ifNoneMatch, long version) {
+        String current = of(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.strip();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The version an If-Match header requires, as a condition for a targeted UPDATE: {@code null} for
+     * {@code *} (any version), and -1, which no row has, unless the header is a single strong tag.
+     */
+    public static Long ifMatchVersion(String ifMatch) {
+        String tag = ifMatch.strip();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not one of ours
+            }
+        }
+        return -1L;
+    }
+}
@@ -0,0 +1,34 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+
+/**
+ * Adds a {@code handler} tag ({@code PatientController.searchByLastName}) to {@code http.server.requests}.
+ * The {@code uri} tag alone cannot tell apart handlers that share a path and differ by parameters or
+ * produced type, such as the three {@code GET /patients} variants. The set of handlers is fixed, so the
+ * tag adds no unbounded cardinality.
+ */
+@Component
+public class HandlerMethodObservationConvention extends DefaultServerRequestObservationConvention {
+
+    static final String HANDLER = "handler";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(handler(context));
+    }
+
+    static KeyValue handler(ServerRequestObservationContext context) {
+        if (context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod method) {
+            return KeyValue.of(HANDLER, method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+        }
+        return KeyValue.of(HANDLER, "none");
+    }
+}
@@ -0,0 +1,51 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON Merge Patch (RFC 7396) documents for entities whose patchable fields are all required: a member
+ * that is present replaces the stored value, an absent one leaves it alone, and {@code null} (which
+ * would remove the field) is rejected.
+ */
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private MergePatch() {
+    }
+
+    /**
+     * Reads {@code patch} into {@code type}, whose components are the patchable fields; absent members stay
+     * {@code null}. Throws {@link IllegalArgumentException} describing the problem when the patch is not an
+     * object, or has an unknown, null or mistyped member.
+     */
+    public static <T extends Record> T read(ObjectMapper objectMapper, JsonNode patch, Class<T> type) {
+        if (!patch.isObject()) {
+            throw new IllegalArgumentException("A merge patch must be a JSON object");
+        }
+        Set<String> fields = Arrays.stream(type.getRecordComponents())
+                .map(RecordComponent::getName)
+                .collect(Collectors.toSet());
+        for (Map.Entry<String, JsonNode> member : patch.properties()) {
+            if (!fields.contains(member.getKey())) {
+                throw new IllegalArgumentException("Unknown field: " + member.getKey());
+            }
+            if (member.getValue().isNull()) {
+                throw new IllegalArgumentException(member.getKey() + " is required and cannot be removed");
+            }
+        }
+        try {
+            return objectMapper.treeToValue(patch, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid value in merge patch", e);
+        }
+    }
+}
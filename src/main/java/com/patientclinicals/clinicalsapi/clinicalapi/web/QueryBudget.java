@@ -0,0 +1,19 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most SQL statements one request to the annotated handler may issue, counted with a cold second-level
+ * cache and independent of how many rows are involved. Checked by {@link QueryBudgetFilter}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
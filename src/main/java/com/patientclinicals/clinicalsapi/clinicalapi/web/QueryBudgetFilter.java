@@ -0,0 +1,81 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the SQL statements behind each request, including lazy loads during response serialization,
+ * and records them per handler method ({@code http.server.requests.statements}). A request that goes
+ * over its handler's {@link QueryBudget} is logged and counted ({@code http.server.requests.over.budget});
+ * with {@code fail-on-exceed} it also fails, which is how the integration tests catch added queries and
+ * N+1 patterns.
+ */
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    private final QueryBudgetProperties properties;
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+
+    public QueryBudgetFilter(QueryBudgetProperties properties, SqlStatementCounter counter, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        counter.begin();
+        int statements;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            statements = counter.end();
+        }
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod method)) {
+            return;
+        }
+        String handler = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        DistributionSummary.builder("http.server.requests.statements")
+                .description("SQL statements issued per request")
+                .tag(HandlerMethodObservationConvention.HANDLER, handler)
+                .register(meterRegistry)
+                .record(statements);
+        QueryBudget budget = method.getMethodAnnotation(QueryBudget.class);
+        if (budget == null || statements <= budget.value()) {
+            return;
+        }
+        Counter.builder("http.server.requests.over.budget")
+                .description("Requests that issued more SQL statements than their handler's budget")
+                .tag(HandlerMethodObservationConvention.HANDLER, handler)
+                .register(meterRegistry)
+                .increment();
+        logger.warn("{} {} issued {} SQL statements, budget for {} is {}", request.getMethod(), request.getRequestURI(),
+                statements, handler, budget.value());
+        if (properties.failOnExceed()) {
+            throw new IllegalStateException(handler + " issued " + statements + " SQL statements, budget is " + budget.value());
+        }
+    }
+}
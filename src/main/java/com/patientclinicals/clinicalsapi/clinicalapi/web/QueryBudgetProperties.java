@@ -0,0 +1,17 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link QueryBudgetFilter} ({@code clinicals.query-budget.*}).
+ *
+ * @param enabled      count statements per request and check {@link QueryBudget}s
+ * @param failOnExceed throw after a request that went over its budget instead of only logging a warning;
+ *                     meant for tests, the response has already been sent by then
+ */
+@ConfigurationProperties("clinicals.query-budget")
+public record QueryBudgetProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("false") boolean failOnExceed) {
+}
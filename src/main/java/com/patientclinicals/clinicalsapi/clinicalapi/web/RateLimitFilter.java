@@ -0,0 +1,135 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Token-bucket rate limits per client, with separate buckets for reads and writes: a client over its rate
+ * gets 429 with {@code Retry-After} at once, before it can take a {@link DatabaseBulkheadFilter} slot.
+ * Clients are told apart by {@code clientHeader}, which is not authenticated here, so a misbehaving
+ * client that varies it is only held back by the bulkhead. At most {@code maxClients} buckets are kept; the
+ * least recently used one makes room for a new client.
+ */
+// ahead of the bulkhead and the other API filters, which run at the default (lowest) precedence
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    // access-ordered, guarded by itself
+    private final Map<String, TokenBucket> buckets;
+    private final Counter readsLimited;
+    private final Counter ingestLimited;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > properties.maxClients();
+            }
+        };
+        this.readsLimited = Counter.builder("clinicals.ratelimit.rejected").tag("class", "read").register(meterRegistry);
+        this.ingestLimited = Counter.builder("clinicals.ratelimit.rejected").tag("class", "ingest").register(meterRegistry);
+        Gauge.builder("clinicals.ratelimit.clients", this, RateLimitFilter::clientCount).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // health and metrics must stay reachable for monitoring, whatever its rate
+        return !properties.enabled() || request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = request.getHeader(properties.clientHeader());
+        if (client == null || client.isBlank()) {
+            client = request.getRemoteAddr();
+        }
+        TrafficClass trafficClass = TrafficClass.of(request);
+        long now = System.nanoTime();
+        long waitNanos = bucket(client, trafficClass, now).tryTake(now);
+        if (waitNanos > 0) {
+            (trafficClass == TrafficClass.READ ? readsLimited : ingestLimited).increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                    Long.toString(Math.max(1, Math.ceilDiv(waitNanos, TimeUnit.SECONDS.toNanos(1)))));
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private TokenBucket bucket(String client, TrafficClass trafficClass, long now) {
+        String key = trafficClass.name() + ' ' + client;
+        synchronized (buckets) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                double factor = properties.clients().getOrDefault(client, 1.0);
+                bucket = trafficClass == TrafficClass.READ
+                        ? new TokenBucket(properties.readRate() * factor, properties.readBurst() * factor, now)
+                        : new TokenBucket(properties.ingestRate() * factor, properties.ingestBurst() * factor, now);
+                buckets.put(key, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    int clientCount() {
+        synchronized (buckets) {
+            return buckets.size();
+        }
+    }
+
+    /**
+     * Holds up to {@code capacity} tokens, refilled continuously at {@code ratePerSecond}; each request takes one.
+     */
+    static final class TokenBucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double ratePerSecond, double capacity, long now) {
+            this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, capacity);
+            this.tokens = this.capacity;
+            this.refilledAt = now;
+        }
+
+        /**
+         * Takes a token and returns 0, or returns how long until one is available (nothing is taken).
+         */
+        synchronized long tryTake(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return tokensPerNano > 0 ? (long) Math.ceil((1 - tokens) / tokensPerNano) : Long.MAX_VALUE;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
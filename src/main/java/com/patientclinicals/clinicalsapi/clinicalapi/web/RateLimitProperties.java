@@ -0,0 +1,30 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for {@link RateLimitFilter} ({@code clinicals.rate-limit.*}).
+ *
+ * @param enabled      rate-limit API requests per client
+ * @param clientHeader request header identifying the client (an API key); without it, the remote address
+ * @param readRate     reads per second each client may sustain
+ * @param readBurst    reads a client may make at once after being idle
+ * @param ingestRate   writes per second each client may sustain
+ * @param ingestBurst  writes a client may make at once after being idle
+ * @param clients      per-client factors applied to the rates and bursts, by client header value
+ * @param maxClients   buckets kept; beyond it the least recently used client is forgotten
+ */
+@ConfigurationProperties("clinicals.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("X-API-Key") String clientHeader,
+        @DefaultValue("50") double readRate,
+        @DefaultValue("100") int readBurst,
+        @DefaultValue("20") double ingestRate,
+        @DefaultValue("100") int ingestBurst,
+        @DefaultValue Map<String, Double> clients,
+        @DefaultValue("10000") int maxClients) {
+}
@@ -0,0 +1,46 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import java.util.Map;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between {@link #begin()} and
+ * {@link #end()}. It registers itself as the session factory's statement inspector, which sees every
+ * statement (queries, lazy loads, inserts, updates, deletes) as it is prepared; a JDBC batch counts once.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] current = count.get();
+        if (current != null) {
+            current[0]++;
+        }
+        return sql;
+    }
+
+    public void begin() {
+        count.set(new int[1]);
+    }
+
+    /**
+     * Statements prepared since {@link #begin()}; stops counting.
+     */
+    public int end() {
+        int[] current = count.get();
+        count.remove();
+        return current == null ? 0 : current[0];
+    }
+}
@@ -0,0 +1,20 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * The two kinds of API traffic that are limited and prioritized separately: reads, and ingest (every
+ * request that writes, most of it readings from devices).
+ */
+public enum TrafficClass {
+
+    READ,
+    INGEST;
+
+    public static TrafficClass of(HttpServletRequest request) {
+        return switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> READ;
+            default -> INGEST;
+        };
+    }
+}
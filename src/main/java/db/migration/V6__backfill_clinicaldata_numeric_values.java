@@ -0,0 +1,70 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.NumericValue;
+
+/**
+ * Fills primary_value/secondary_value for readings written before V5, with the same parsing the
+ * application applies on write. Rows are walked in id order in chunks, each committed on its own, so the
+ * backfill never holds one huge transaction. Only rows without a primary_value are read: after an
+ * interruption ({@code flyway repair}, then migrate again) the rerun skips the chunks already filled and
+ * the rows the application has written since, and only re-reads the non-numeric ones.
+ */
+public class V6__backfill_clinicaldata_numeric_values extends BaseJavaMigration {
+
+    private static final int CHUNK_SIZE = 5000;
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, component_value FROM clinicaldata WHERE id > ? AND primary_value IS NULL ORDER BY id LIMIT "
+                        + CHUNK_SIZE);
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE clinicaldata SET primary_value = ?, secondary_value = ? WHERE id = ?")) {
+            long lastId = 0;
+            int rows;
+            do {
+                rows = 0;
+                select.setLong(1, lastId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getLong(1);
+                        rows++;
+                        NumericValue numeric = NumericValue.parse(rs.getString(2));
+                        if (numeric.primary() == null) {
+                            continue;
+                        }
+                        update.setDouble(1, numeric.primary());
+                        if (numeric.secondary() == null) {
+                            update.setNull(2, Types.DOUBLE);
+                        } else {
+                            update.setDouble(2, numeric.secondary());
+                        }
+                        update.setLong(3, lastId);
+                        update.addBatch();
+                    }
+                }
+                update.executeBatch();
+                connection.commit();
+            } while (rows == CHUNK_SIZE);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,3 @@
+-- Finds the oldest change_log entry that has not settled yet (GET /changes): a short range scan over the
+-- recent tail instead of a walk along the primary key.
+CREATE INDEX idx_change_log_recorded_at ON change_log (recorded_at);
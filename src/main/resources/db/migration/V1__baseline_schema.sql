@@ -0,0 +1,19 @@
+-- Schema as it existed before Flyway was introduced. Existing databases are
+-- baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+CREATE TABLE IF NOT EXISTS patient (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    age INT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS clinicaldata (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    component_name VARCHAR(255) NOT NULL,
+    component_value VARCHAR(255) NOT NULL,
+    measured_date_time DATETIME(6) NOT NULL,
+    patient_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_clinicaldata_patient FOREIGN KEY (patient_id) REFERENCES patient (id)
+);
@@ -0,0 +1,11 @@
+-- Pooled id allocation for clinicaldata so Hibernate can batch inserts (IDENTITY disables batching).
+-- The pooled optimizer hands out the 50 ids *below* the value it reads, so the row is seeded
+-- one allocation block above the current maximum to stay clear of existing ids.
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(64) NOT NULL,
+    next_val BIGINT NOT NULL,
+    PRIMARY KEY (sequence_name)
+);
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'clinicaldata', COALESCE(MAX(id), 0) + 51 FROM clinicaldata;
@@ -0,0 +1,3 @@
+-- Idempotency key for readings replayed from the local ingest spool.
+ALTER TABLE clinicaldata ADD COLUMN ingest_key VARCHAR(36) NULL;
+CREATE UNIQUE INDEX uk_clinicaldata_ingest_key ON clinicaldata (ingest_key);
@@ -0,0 +1,3 @@
+-- Serves per-patient, per-component time-range reads in time order (GET /patients/{id}/clinicaldata).
+-- InnoDB appends the primary key to secondary indexes, so the id tie-break of the keyset is covered too.
+CREATE INDEX idx_clinicaldata_patient_component_time ON clinicaldata (patient_id, component_name, measured_date_time);
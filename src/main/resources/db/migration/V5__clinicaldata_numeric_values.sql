@@ -0,0 +1,4 @@
+-- Typed numeric reading of component_value so aggregation and range predicates run in the database.
+-- Filled by the application on every write; existing rows are backfilled by V6.
+ALTER TABLE clinicaldata ADD COLUMN primary_value DOUBLE NULL;
+ALTER TABLE clinicaldata ADD COLUMN secondary_value DOUBLE NULL;
@@ -0,0 +1,4 @@
+-- Optimistic-lock version per row, incremented by Hibernate on every update; also the ETag of
+-- GET /patients/{id} and GET /clinicaldata/{id}.
+ALTER TABLE patient ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE clinicaldata ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
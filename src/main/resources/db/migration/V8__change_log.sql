@@ -0,0 +1,11 @@
+-- Change feed behind GET /changes: one row per insert, update or delete of a patient or reading, written in
+-- the same transaction as the change. The auto-increment id is the clients' sync cursor.
+CREATE TABLE change_log (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    entity_type VARCHAR(16) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    operation VARCHAR(8) NOT NULL,
+    recorded_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,4 @@
+-- Serves a patient's time-range reads across all components in time order (GET /patients/{id}/clinicaldata
+-- without a component), which idx_clinicaldata_patient_component_time can only narrow to the patient.
+-- InnoDB appends the primary key to secondary indexes, so the id tie-break of the keyset is covered too.
+CREATE INDEX idx_clinicaldata_patient_time ON clinicaldata (patient_id, measured_date_time);
@@ -0,0 +1,57 @@
+package com.patientclinicals.clinicalsapi.clinicalapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.perf.LoadDriver;
+import com.patientclinicals.clinicalsapi.clinicalapi.perf.LoadDriver.EndpointStats;
+
+/**
+ * Runs the {@link LoadDriver} endpoint mix against the application with platform-thread and with
+ * virtual-thread request handling and prints the per-endpoint results for both. Excluded from the regular
+ * build; run with {@code mvn test -Pload-test}. Each mode gets its own embedded database filled by the
+ * {@code perf} profile unless a datasource is passed as system properties
+ * (e.g. {@code -Dspring.datasource.url=jdbc:mysql://...}), which is where the modes differ.
+ */
+@Tag("load")
+class ExecutionModeLoadTest {
+
+    private static final int CONCURRENCY = 400;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(20);
+
+    @Test
+    void compareVirtualAndPlatformThreads() throws Exception {
+        List<EndpointStats> platform = run(false);
+        List<EndpointStats> virtual = run(true);
+
+        System.out.println("platform threads:");
+        LoadDriver.print(platform, System.out);
+        System.out.println("virtual threads:");
+        LoadDriver.print(virtual, System.out);
+        assertThat(platform.getLast().requests()).isPositive();
+        assertThat(virtual.getLast().requests()).isPositive();
+    }
+
+    private List<EndpointStats> run(boolean virtualThreads) throws Exception {
+        String database = virtualThreads ? "load-virtual" : "load-platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ClinicalapiApplication.class)
+                .profiles("perf")
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "clinicals.perf.data.patients=200")
+                .run()) {
+            LoadDriver driver = new LoadDriver("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", ""));
+            return driver.run(driver.discoverEndpoints(false), CONCURRENCY, WARMUP, DURATION);
+        }
+    }
+}
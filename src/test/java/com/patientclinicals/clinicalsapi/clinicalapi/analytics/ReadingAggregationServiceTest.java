@@ -0,0 +1,97 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReadingAggregationService.class)
+class ReadingAggregationServiceTest {
+
+    private static final Instant FROM = Instant.parse("2025-10-15T00:00:00Z");
+    private static final Instant TO = Instant.parse("2025-10-15T03:00:00Z");
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ReadingAggregationService aggregationService;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = em.persist(new Patient("Ada", "Lovelace", 36));
+    }
+
+    private void addReading(String name, String value, String at) {
+        ClinicalData cd = new ClinicalData(name, value, Timestamp.from(Instant.parse(at)));
+        cd.setPatient(patient);
+        em.persist(cd);
+    }
+
+    @Test
+    void aggregate_bucketsReadingsByInterval_andSkipsEmptyBuckets() {
+        addReading("hr", "60", "2025-10-15T00:10:00Z");
+        addReading("hr", "80", "2025-10-15T00:50:00Z");
+        addReading("hr", "70", "2025-10-15T00:30:00Z");
+        addReading("hr", "90", "2025-10-15T02:00:00Z");
+        addReading("hr", "99", "2025-10-15T03:00:00Z");
+        addReading("bp", "120/80", "2025-10-15T00:20:00Z");
+        em.flush();
+        em.clear();
+
+        List<ReadingBucket> buckets = aggregationService.aggregate(patient.getId(), "hr", FROM, TO, Duration.ofHours(1));
+
+        assertThat(buckets).containsExactly(
+                new ReadingBucket(FROM, 3, 60.0, 80.0, 70.0, null, null, null, "80"),
+                new ReadingBucket(FROM.plus(Duration.ofHours(2)), 1, 90.0, 90.0, 90.0, null, null, null, "90"));
+    }
+
+    @Test
+    void aggregate_compoundAndNonNumericValues() {
+        addReading("bp", "120/80", "2025-10-15T00:10:00Z");
+        addReading("bp", "140/90", "2025-10-15T00:20:00Z");
+        addReading("note", "dizzy", "2025-10-15T00:30:00Z");
+        em.flush();
+        em.clear();
+
+        assertThat(aggregationService.aggregate(patient.getId(), "bp", FROM, TO, Duration.ofHours(3)))
+                .containsExactly(new ReadingBucket(FROM, 2, 120.0, 140.0, 130.0, 80.0, 90.0, 85.0, "140/90"));
+        assertThat(aggregationService.aggregate(patient.getId(), "note", FROM, TO, Duration.ofHours(3)))
+                .containsExactly(new ReadingBucket(FROM, 1, null, null, null, null, null, null, "dizzy"));
+    }
+
+    @Test
+    void aggregate_secondBuckets_lastIsLaterInsertOnEqualTimes() {
+        addReading("hr", "60", "2025-10-15T00:00:00.100Z");
+        addReading("hr", "61", "2025-10-15T00:00:01.700Z");
+        addReading("hr", "62", "2025-10-15T00:00:01.700Z");
+        em.flush();
+        em.clear();
+
+        assertThat(aggregationService.aggregate(patient.getId(), "hr", FROM, TO, Duration.ofSeconds(1)))
+                .extracting(ReadingBucket::start, ReadingBucket::count, ReadingBucket::last)
+                .containsExactly(
+                        tuple(FROM, 1L, "60"),
+                        tuple(FROM.plusSeconds(1), 2L, "62"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LatestVitalsCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private LatestVitalsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new LatestVitalsCache(new LatestVitalsCacheProperties(64, Duration.ofMinutes(5)), meterRegistry, clock::get);
+    }
+
+    private static LatestReading reading(long id, String value, String at) {
+        return new LatestReading(id, value, Timestamp.valueOf(at));
+    }
+
+    private void load(long patientId, Map<String, LatestReading> readings) {
+        cache.putIfUnchanged(patientId, readings, cache.stamp(patientId));
+    }
+
+    @Test
+    void get_afterLoad_hits() {
+        load(1L, Map.of("hr", reading(1, "72", "2025-10-15 08:00:00")));
+
+        assertThat(cache.get(1L)).containsOnlyKeys("hr");
+        assertThat(cache.get(2L)).isNull();
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void get_afterTtl_misses() {
+        load(1L, Map.of());
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void apply_newerReading_replacesCachedComponent() {
+        load(1L, Map.of("hr", reading(1, "72", "2025-10-15 08:00:00")));
+
+        cache.apply(1L, "hr", reading(2, "80", "2025-10-15 09:00:00"));
+        cache.apply(1L, "bp", reading(3, "120/80", "2025-10-15 09:00:00"));
+
+        assertThat(cache.get(1L).get("hr").componentValue()).isEqualTo("80");
+        assertThat(cache.get(1L).get("bp").componentValue()).isEqualTo("120/80");
+    }
+
+    @Test
+    void apply_olderReading_keepsCachedComponent() {
+        load(1L, Map.of("hr", reading(2, "80", "2025-10-15 09:00:00")));
+
+        cache.apply(1L, "hr", reading(3, "60", "2025-10-15 07:00:00"));
+
+        assertThat(cache.get(1L).get("hr").componentValue()).isEqualTo("80");
+    }
+
+    @Test
+    void apply_uncachedPatient_doesNotCreateEntry() {
+        cache.apply(1L, "hr", reading(1, "72", "2025-10-15 08:00:00"));
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void putIfUnchanged_afterConcurrentWrite_isDiscarded() {
+        long stamp = cache.stamp(1L);
+        cache.invalidate(1L);
+
+        cache.putIfUnchanged(1L, Map.of(), stamp);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void invalidate_removesEntry() {
+        load(1L, Map.of());
+
+        cache.invalidate(1L);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void size_neverExceedsCapacity() {
+        for (long id = 1; id <= 1000; id++) {
+            load(id, Map.of());
+            clock.incrementAndGet();
+        }
+
+        assertThat(cache.size()).isEqualTo(cache.capacity()).isEqualTo(64);
+        assertThat(meterRegistry.get("cache.evictions").counter().count()).isEqualTo(1000 - 64);
+    }
+}
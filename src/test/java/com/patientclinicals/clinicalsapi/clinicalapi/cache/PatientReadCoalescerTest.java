@@ -0,0 +1,150 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PatientReadCoalescerTest {
+
+    private static final SerializedPatient PATIENT = new SerializedPatient(1L, "{\"id\":1}".getBytes());
+
+    private SimpleMeterRegistry meterRegistry;
+    private PatientReadCoalescer coalescer;
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService requests = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new PatientReadCoalescer(new PatientReadCoalescerProperties(true), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        requests.shutdownNow();
+    }
+
+    // counts its calls and blocks until released, so that other requests arrive while it is in flight
+    private Optional<SerializedPatient> blockingLoad(long patientId) {
+        loads.incrementAndGet();
+        loading.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Optional.of(PATIENT);
+    }
+
+    private CompletableFuture<Optional<SerializedPatient>> getAsync(long patientId, LongFunction<Optional<SerializedPatient>> loader) {
+        return CompletableFuture.supplyAsync(() -> coalescer.get(patientId, loader), requests);
+    }
+
+    private void awaitShared(double count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sharedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(sharedCount()).isEqualTo(count);
+    }
+
+    private double sharedCount() {
+        return meterRegistry.get("clinicals.coalescing.requests").tag("result", "shared").counter().count();
+    }
+
+    @Test
+    void concurrentGets_forTheSamePatient_shareOneLoad() throws Exception {
+        CompletableFuture<Optional<SerializedPatient>> first = getAsync(1L, this::blockingLoad);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Optional<SerializedPatient>> second = getAsync(1L, this::blockingLoad);
+        CompletableFuture<Optional<SerializedPatient>> third = getAsync(1L, this::blockingLoad);
+        awaitShared(2);
+
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsSame(PATIENT);
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsSame(PATIENT);
+        assertThat(third.get(5, TimeUnit.SECONDS)).containsSame(PATIENT);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("clinicals.coalescing.requests").tag("result", "load").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("clinicals.coalescing.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void get_afterTheLoadCompleted_loadsAgain() {
+        coalescer.get(1L, id -> Optional.of(PATIENT));
+
+        assertThat(coalescer.get(1L, id -> Optional.empty())).isEmpty();
+    }
+
+    @Test
+    void get_otherPatient_doesNotWait() throws Exception {
+        CompletableFuture<Optional<SerializedPatient>> first = getAsync(1L, this::blockingLoad);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(coalescer.get(2L, id -> Optional.empty())).isEmpty();
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsSame(PATIENT);
+    }
+
+    @Test
+    void get_afterForget_startsAFreshLoad() throws Exception {
+        CompletableFuture<Optional<SerializedPatient>> stale = getAsync(1L, this::blockingLoad);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        coalescer.forget(1L);
+        SerializedPatient updated = new SerializedPatient(2L, "{\"id\":1}".getBytes());
+
+        assertThat(coalescer.get(1L, id -> Optional.of(updated))).containsSame(updated);
+        release.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS)).containsSame(PATIENT);
+    }
+
+    @Test
+    void failedLoad_isRethrownToEveryWaiter() throws Exception {
+        CompletableFuture<Optional<SerializedPatient>> first = getAsync(1L, id -> {
+            blockingLoad(id);
+            throw new IllegalStateException("database down");
+        });
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Optional<SerializedPatient>> second = getAsync(1L, this::blockingLoad);
+        awaitShared(1);
+
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void disabled_loadsForEveryRequest() throws Exception {
+        coalescer = new PatientReadCoalescer(new PatientReadCoalescerProperties(false), meterRegistry);
+        CompletableFuture<Optional<SerializedPatient>> first = getAsync(1L, this::blockingLoad);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(coalescer.get(1L, id -> Optional.empty())).isEmpty();
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsSame(PATIENT);
+    }
+}
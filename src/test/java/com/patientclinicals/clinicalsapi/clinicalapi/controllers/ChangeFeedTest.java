@@ -0,0 +1,141 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ChangeLogEntry;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ChangeLogRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.MergePatch;
+
+/**
+ * A client syncing through {@code GET /changes} sees every write path: inserts, targeted updates, batch ingest
+ * and deletes, folded to the latest change per row.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ChangeFeedTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    private JsonNode perform(RequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        return body.isEmpty() ? null : objectMapper.readTree(body);
+    }
+
+    private long createPatient(String lastName) throws Exception {
+        return perform(post("/patients").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Change\",\"lastName\":\"" + lastName + "\",\"age\":30}")).get("id").asLong();
+    }
+
+    private static List<String> summaries(JsonNode page) {
+        List<String> summaries = new ArrayList<>();
+        page.get("changes").forEach(c -> summaries.add(
+                c.get("operation").asText() + " " + c.get("type").asText() + " " + c.get("id").asLong()));
+        return summaries;
+    }
+
+    @Test
+    void changesSinceCursor_coverEveryWritePath() throws Exception {
+        long start = perform(get("/changes")).get("cursor").asLong();
+
+        long patientId = createPatient("Feed");
+        long readingId = perform(post("/clinicaldata/clinicals").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"patientId\":" + patientId + ",\"componentName\":\"hr\",\"componentValue\":\"70\"}"))
+                .get("id").asLong();
+        perform(post("/clinicaldata/clinicals/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"patientId\":" + patientId + ",\"componentName\":\"hr\",\"componentValue\":\"72\"},"
+                        + "{\"patientId\":" + patientId + ",\"componentName\":\"bp\",\"componentValue\":\"120/80\"}]"));
+        perform(patch("/patients/{id}", patientId).contentType(MergePatch.MEDIA_TYPE).content("{\"age\":31}"));
+        perform(delete("/clinicaldata/{id}", readingId));
+
+        JsonNode page = perform(get("/changes").param("since", String.valueOf(start)));
+
+        List<String> changes = summaries(page);
+        assertThat(changes).hasSize(4);
+        // the patient's insert and update fold into its latest entry, placed after the batch
+        assertThat(changes.get(2)).isEqualTo("UPSERT PATIENT " + patientId);
+        assertThat(changes.get(3)).isEqualTo("DELETE CLINICAL_DATA " + readingId);
+        assertThat(changes.subList(0, 2)).allMatch(c -> c.startsWith("UPSERT CLINICAL_DATA "));
+        assertThat(page.get("changes").get(2).get("data").get("age").asInt()).isEqualTo(31);
+        assertThat(page.get("changes").get(0).get("patientId").asLong()).isEqualTo(patientId);
+        assertThat(page.get("changes").get(3).has("data")).isFalse();
+        assertThat(page.get("hasMore").asBoolean()).isFalse();
+
+        long cursor = page.get("cursor").asLong();
+        assertThat(cursor).isGreaterThan(start);
+        JsonNode caughtUp = perform(get("/changes").param("since", String.valueOf(cursor)));
+        assertThat(caughtUp.get("changes")).isEmpty();
+        assertThat(caughtUp.get("cursor").asLong()).isEqualTo(cursor);
+
+        perform(delete("/patients/{id}", patientId));
+        assertThat(summaries(perform(get("/changes").param("since", String.valueOf(cursor)))))
+                .containsExactly("DELETE PATIENT " + patientId);
+    }
+
+    @Test
+    void fullPage_reportsMore_andResumesFromItsCursor() throws Exception {
+        long start = perform(get("/changes")).get("cursor").asLong();
+        long first = createPatient("PageOne");
+        long second = createPatient("PageTwo");
+
+        JsonNode page = perform(get("/changes").param("since", String.valueOf(start)).param("limit", "1"));
+        assertThat(summaries(page)).containsExactly("UPSERT PATIENT " + first);
+        assertThat(page.get("hasMore").asBoolean()).isTrue();
+
+        JsonNode next = perform(get("/changes").param("since", page.get("cursor").asText()).param("limit", "1"));
+        assertThat(summaries(next)).containsExactly("UPSERT PATIENT " + second);
+
+        perform(delete("/patients/{id}", first));
+        perform(delete("/patients/{id}", second));
+        // upserts of rows deleted since are left out, their DELETE entries follow
+        assertThat(summaries(perform(get("/changes").param("since", String.valueOf(start)))))
+                .containsExactly("DELETE PATIENT " + first, "DELETE PATIENT " + second);
+    }
+
+    @Test
+    void unsettledEntry_holdsBackTheSettledOnesAfterIt() throws Exception {
+        long start = perform(get("/changes")).get("cursor").asLong();
+        // stamped before a slow insert: a lower id that settles after the entries written behind it
+        ChangeLogEntry late = changeLogRepository.save(new ChangeLogEntry(ChangeLogEntry.Type.PATIENT, -1L, -1L,
+                ChangeLogEntry.Operation.UPSERT, new Timestamp(System.currentTimeMillis() + 60_000)));
+        long patientId = createPatient("Settled");
+        try {
+            JsonNode page = perform(get("/changes").param("since", String.valueOf(start)));
+            assertThat(page.get("changes")).isEmpty();
+            assertThat(page.get("cursor").asLong()).isEqualTo(start);
+            assertThat(perform(get("/changes")).get("cursor").asLong()).isEqualTo(late.getId() - 1);
+        } finally {
+            changeLogRepository.delete(late);
+        }
+
+        assertThat(summaries(perform(get("/changes").param("since", String.valueOf(start)))))
+                .containsExactly("UPSERT PATIENT " + patientId);
+        perform(delete("/patients/{id}", patientId));
+    }
+}
@@ -2,16 +2,25 @@ package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataModifiedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataSavedEvent;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.ClinicalDataIngestService;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.ClinicalDataSpool;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.WriteBehindIngestBuffer;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
@@ -19,7 +28,10 @@ import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientReposit
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.MediaType;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
@@ -27,6 +39,10 @@ public class ClinicalDataControllerTest {
 
     private ClinicalDataRepository clinicalDataRepository;
     private PatientRepository patientRepository;
+    private ClinicalDataIngestService ingestService;
+    private WriteBehindIngestBuffer writeBehindBuffer;
+    private ClinicalDataSpool spool;
+    private ApplicationEventPublisher eventPublisher;
     private ClinicalDataController controller;
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
@@ -35,9 +51,14 @@ public class ClinicalDataControllerTest {
     void setUp() {
         clinicalDataRepository = mock(ClinicalDataRepository.class);
         patientRepository = mock(PatientRepository.class);
-        controller = new ClinicalDataController(clinicalDataRepository, patientRepository);
-        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        ingestService = mock(ClinicalDataIngestService.class);
+        writeBehindBuffer = mock(WriteBehindIngestBuffer.class);
+        spool = mock(ClinicalDataSpool.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
         objectMapper = new ObjectMapper();
+        controller = new ClinicalDataController(clinicalDataRepository, patientRepository, ingestService, writeBehindBuffer,
+                spool, eventPublisher, objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
 
     private ClinicalData makeClinicalData(Long id, String name, String value) {
@@ -86,6 +107,17 @@ public class ClinicalDataControllerTest {
         verify(clinicalDataRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getById_ifNoneMatchCurrent_returnsNotModifiedWithoutLoading() throws Exception {
+        when(clinicalDataRepository.findVersionById(1L)).thenReturn(Optional.of(0L));
+
+        mockMvc.perform(get("/clinicaldata/{id}", 1L).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""));
+
+        verify(clinicalDataRepository, never()).findById(anyLong());
+    }
+
     @Test
     void getById_notFound_returns404() throws Exception {
         when(clinicalDataRepository.findById(1L)).thenReturn(Optional.empty());
@@ -103,7 +135,7 @@ public class ClinicalDataControllerTest {
         toCreate.setComponentValue("98.6");
 
         ClinicalData saved = makeClinicalData(5L, "temp", "98.6");
-        when(clinicalDataRepository.save(any(ClinicalData.class))).thenReturn(saved);
+        when(clinicalDataRepository.create(any(ClinicalData.class))).thenReturn(saved);
 
         String body = objectMapper.writeValueAsString(toCreate);
 
@@ -116,21 +148,21 @@ public class ClinicalDataControllerTest {
                 .andExpect(jsonPath("$.componentName", is("temp")));
 
         ArgumentCaptor<ClinicalData> captor = ArgumentCaptor.forClass(ClinicalData.class);
-        verify(clinicalDataRepository, times(1)).save(captor.capture());
+        verify(clinicalDataRepository, times(1)).create(captor.capture());
         ClinicalData passed = captor.getValue();
         assert passed != null;
     }
 
     @Test
-    void update_existingId_updatesAndReturnsOk() throws Exception {
-        ClinicalData incoming = new ClinicalData();
-        incoming.setComponentName("weight");
-        incoming.setComponentValue("160");
-
-        ClinicalData saved = makeClinicalData(10L, "weight", "160");
+    void update_existingId_updatesWithOneStatementAndReturnsOk() throws Exception {
+        ClinicalData incoming = makeClinicalData(null, "weight", "160");
+        incoming.setMeasuredDateTime(Timestamp.valueOf("2025-10-15 08:00:00"));
 
-        when(clinicalDataRepository.existsById(10L)).thenReturn(true);
-        when(clinicalDataRepository.save(any(ClinicalData.class))).thenReturn(saved);
+        ClinicalData stored = makeClinicalData(10L, "weight", "160");
+        stored.setVersion(1L);
+        when(clinicalDataRepository.updateById(10L, null, "weight", "160", incoming.getMeasuredDateTime())).thenReturn(1);
+        when(clinicalDataRepository.findPatientIdById(10L)).thenReturn(Optional.of(3L));
+        when(clinicalDataRepository.findById(10L)).thenReturn(Optional.of(stored));
 
         String body = objectMapper.writeValueAsString(incoming);
 
@@ -138,22 +170,48 @@ public class ClinicalDataControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(body))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
                 .andExpect(jsonPath("$.id", is(10)))
                 .andExpect(jsonPath("$.componentName", is("weight")));
 
-        ArgumentCaptor<ClinicalData> captor = ArgumentCaptor.forClass(ClinicalData.class);
-        verify(clinicalDataRepository, times(1)).save(captor.capture());
-        ClinicalData passed = captor.getValue();
-        assert passed.getId() != null && passed.getId().equals(10L);
+        // no load or merge before the UPDATE; the reading is only read back after it
+        InOrder order = inOrder(clinicalDataRepository);
+        order.verify(clinicalDataRepository).updateById(10L, null, "weight", "160", incoming.getMeasuredDateTime());
+        order.verify(clinicalDataRepository).findById(10L);
+        verify(clinicalDataRepository, never()).create(any());
+        verify(eventPublisher).publishEvent(ClinicalDataModifiedEvent.of(3L));
+    }
+
+    @Test
+    void update_missingField_returnsBadRequest() throws Exception {
+        mockMvc.perform(put("/clinicaldata/{id}", 10L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"componentName\":\"hr\",\"componentValue\":\"70\"}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(clinicalDataRepository);
+    }
+
+    @Test
+    void update_ifMatchStaleVersion_returnsPreconditionFailed() throws Exception {
+        when(clinicalDataRepository.updateById(eq(10L), eq(1L), any(), any(), any())).thenReturn(0);
+        when(clinicalDataRepository.findVersionById(10L)).thenReturn(Optional.of(2L));
+
+        mockMvc.perform(put("/clinicaldata/{id}", 10L)
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"componentName\":\"hr\",\"componentValue\":\"70\",\"measuredDateTime\":0}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     void update_nonExistingId_returnsNotFound() throws Exception {
-        ClinicalData incoming = new ClinicalData();
-        incoming.setComponentName("weight");
-        incoming.setComponentValue("160");
+        ClinicalData incoming = makeClinicalData(null, "weight", "160");
+        incoming.setMeasuredDateTime(Timestamp.valueOf("2025-10-15 08:00:00"));
 
-        when(clinicalDataRepository.existsById(11L)).thenReturn(false);
+        when(clinicalDataRepository.updateById(eq(11L), isNull(), any(), any(), any())).thenReturn(0);
 
         String body = objectMapper.writeValueAsString(incoming);
 
@@ -162,30 +220,75 @@ public class ClinicalDataControllerTest {
                         .content(body))
                 .andExpect(status().isNotFound());
 
-        verify(clinicalDataRepository, never()).save(any());
+        verify(clinicalDataRepository, never()).findVersionById(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void patch_updatesOnlyThePresentFields() throws Exception {
+        when(clinicalDataRepository.updateById(10L, 4L, null, "75", null)).thenReturn(1);
+        when(clinicalDataRepository.findPatientIdById(10L)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(patch("/clinicaldata/{id}", 10L)
+                        .header("If-Match", "\"4\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"componentValue\":\"75\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"5\""));
+
+        verify(eventPublisher).publishEvent(ClinicalDataModifiedEvent.of(3L));
+    }
+
+    @Test
+    void patch_emptyDocument_changesNothing() throws Exception {
+        when(clinicalDataRepository.findVersionById(10L)).thenReturn(Optional.of(4L));
+
+        mockMvc.perform(patch("/clinicaldata/{id}", 10L)
+                        .header("If-Match", "\"4\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        verify(clinicalDataRepository, never()).updateById(any(), any(), any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void patch_removingARequiredField_returnsBadRequest() throws Exception {
+        mockMvc.perform(patch("/clinicaldata/{id}", 10L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"componentValue\":null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("componentValue is required and cannot be removed")));
+
+        verifyNoInteractions(clinicalDataRepository);
     }
 
     @Test
     void delete_existingId_deletesAndReturnsNoContent() throws Exception {
-        when(clinicalDataRepository.existsById(7L)).thenReturn(true);
-        doNothing().when(clinicalDataRepository).deleteById(7L);
+        when(clinicalDataRepository.findPatientIdById(7L)).thenReturn(Optional.of(2L));
+        when(clinicalDataRepository.removeById(7L)).thenReturn(1);
 
         mockMvc.perform(delete("/clinicaldata/{id}", 7L))
                 .andExpect(status().isNoContent());
 
-        verify(clinicalDataRepository, times(1)).existsById(7L);
-        verify(clinicalDataRepository, times(1)).deleteById(7L);
+        verify(clinicalDataRepository, times(1)).findPatientIdById(7L);
+        verify(clinicalDataRepository, times(1)).removeById(7L);
+        verify(clinicalDataRepository, never()).deleteById(anyLong());
+        verify(eventPublisher).publishEvent(ClinicalDataModifiedEvent.of(2L));
     }
 
     @Test
     void delete_nonExistingId_returnsNotFound() throws Exception {
-        when(clinicalDataRepository.existsById(8L)).thenReturn(false);
+        when(clinicalDataRepository.findPatientIdById(8L)).thenReturn(Optional.empty());
 
         mockMvc.perform(delete("/clinicaldata/{id}", 8L))
                 .andExpect(status().isNotFound());
 
-        verify(clinicalDataRepository, times(1)).existsById(8L);
-        verify(clinicalDataRepository, never()).deleteById(anyLong());
+        verify(clinicalDataRepository, times(1)).findPatientIdById(8L);
+        verify(clinicalDataRepository, never()).removeById(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -200,7 +303,7 @@ public class ClinicalDataControllerTest {
         Patient patient = makePatient(patientId);
         ClinicalData saved = makeClinicalData(20L, "glucose", "90");
         when(patientRepository.findById(patientId)).thenReturn(Optional.of(patient));
-        when(clinicalDataRepository.save(any(ClinicalData.class))).thenReturn(saved);
+        when(clinicalDataRepository.create(any(ClinicalData.class))).thenReturn(saved);
 
         String body = objectMapper.writeValueAsString(req);
 
@@ -213,9 +316,10 @@ public class ClinicalDataControllerTest {
                 .andExpect(jsonPath("$.componentValue", is("90")));
 
         ArgumentCaptor<ClinicalData> captor = ArgumentCaptor.forClass(ClinicalData.class);
-        verify(clinicalDataRepository, times(1)).save(captor.capture());
+        verify(clinicalDataRepository, times(1)).create(captor.capture());
         ClinicalData passed = captor.getValue();
         assert passed.getPatient() != null && passed.getPatient().getId().equals(patientId);
+        verify(eventPublisher).publishEvent(new ClinicalDataSavedEvent(List.of(saved)));
     }
 
     @Test
@@ -229,7 +333,7 @@ public class ClinicalDataControllerTest {
 
         ClinicalData saved = makeClinicalData(21L, "o2", "98");
         when(patientRepository.findById(patientId)).thenReturn(Optional.empty());
-        when(clinicalDataRepository.save(any(ClinicalData.class))).thenReturn(saved);
+        when(clinicalDataRepository.create(any(ClinicalData.class))).thenReturn(saved);
 
         String body = objectMapper.writeValueAsString(req);
 
@@ -241,8 +345,153 @@ public class ClinicalDataControllerTest {
                 .andExpect(jsonPath("$.componentName", is("o2")));
 
         ArgumentCaptor<ClinicalData> captor = ArgumentCaptor.forClass(ClinicalData.class);
-        verify(clinicalDataRepository, times(1)).save(captor.capture());
+        verify(clinicalDataRepository, times(1)).create(captor.capture());
         ClinicalData passed = captor.getValue();
         assert passed.getPatient() == null;
     }
-}
\ No newline at end of file
+
+    @Test
+    void saveClinicalData_writeBehind_queuesAndReturnsAccepted() throws Exception {
+        Map<String, Object> req = Map.of("patientId", 1L, "componentName", "hr", "componentValue", "72");
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+        when(writeBehindBuffer.offer(any(ClinicalDataRequest.class))).thenReturn(true);
+
+        mockMvc.perform(post("/clinicaldata/clinicals")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.componentName", is("hr")));
+
+        verify(writeBehindBuffer).offer(argThat(r -> r.getPatientId().equals(1L) && r.getComponentValue().equals("72")));
+        verifyNoInteractions(patientRepository, clinicalDataRepository);
+    }
+
+    @Test
+    void saveClinicalData_writeBehindMissingField_returnsBadRequestWithoutQueueing() throws Exception {
+        Map<String, Object> req = Map.of("patientId", 1L, "componentName", "hr");
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(post("/clinicaldata/clinicals")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("componentValue")));
+
+        verify(writeBehindBuffer, never()).offer(any());
+    }
+
+    @Test
+    void saveClinicalData_writeBehindValueTooLong_returnsBadRequestWithoutQueueing() throws Exception {
+        Map<String, Object> req = Map.of("patientId", 1L, "componentName", "hr",
+                "componentValue", "7".repeat(ClinicalDataController.MAX_FIELD_LENGTH + 1));
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(post("/clinicaldata/clinicals")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isBadRequest());
+
+        verify(writeBehindBuffer, never()).offer(any());
+    }
+
+    @Test
+    void saveClinicalData_writeBehindQueueFull_returnsTooManyRequests() throws Exception {
+        Map<String, Object> req = Map.of("patientId", 1L, "componentName", "hr", "componentValue", "72");
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+        when(writeBehindBuffer.offer(any(ClinicalDataRequest.class))).thenReturn(false);
+
+        mockMvc.perform(post("/clinicaldata/clinicals")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        verifyNoInteractions(clinicalDataRepository);
+    }
+
+    @Test
+    void saveClinicalData_databaseUnavailable_spoolsAndReturnsAccepted() throws Exception {
+        Map<String, Object> req = Map.of("patientId", 1L, "componentName", "hr", "componentValue", "72");
+        when(spool.isEnabled()).thenReturn(true);
+        when(patientRepository.findById(1L)).thenThrow(new CannotCreateTransactionException("Communications link failure"));
+
+        mockMvc.perform(post("/clinicaldata/clinicals")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.componentName", is("hr")));
+
+        verify(spool).append(argThat(r -> r.getPatientId().equals(1L)));
+        verify(clinicalDataRepository, never()).create(any());
+    }
+
+    @Test
+    void saveClinicalDataBatch_databaseUnavailable_spoolsWholeBatch() throws Exception {
+        List<Map<String, Object>> req = List.of(
+                Map.of("patientId", 1L, "componentName", "hr", "componentValue", "72"),
+                Map.of("patientId", 2L, "componentName", "hr", "componentValue", "80"));
+        when(spool.isEnabled()).thenReturn(true);
+        when(ingestService.findUnknownPatientIds(anyList())).thenThrow(new CannotCreateTransactionException("down"));
+
+        mockMvc.perform(post("/clinicaldata/clinicals/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.spooled", is(2)));
+
+        verify(spool).appendAll(argThat(list -> list.size() == 2));
+    }
+
+    @Test
+    void saveClinicalDataBatch_validatesOnceAndInsertsAll() throws Exception {
+        List<Map<String, Object>> req = List.of(
+                Map.of("patientId", 1L, "componentName", "hr", "componentValue", "72"),
+                Map.of("patientId", 2L, "componentName", "hr", "componentValue", "80"));
+
+        when(ingestService.findUnknownPatientIds(anyList())).thenReturn(Set.of());
+        when(ingestService.insertAll(anyList())).thenReturn(List.of(
+                makeClinicalData(30L, "hr", "72"), makeClinicalData(31L, "hr", "80")));
+
+        mockMvc.perform(post("/clinicaldata/clinicals/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.inserted", is(2)));
+
+        verify(ingestService, times(1)).findUnknownPatientIds(anyList());
+        verify(ingestService, times(1)).insertAll(argThat(list -> list.size() == 2));
+        verify(patientRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void saveClinicalDataBatch_unknownPatient_rejectsWholeBatch() throws Exception {
+        List<Map<String, Object>> req = List.of(
+                Map.of("patientId", 1L, "componentName", "hr", "componentValue", "72"),
+                Map.of("patientId", 99L, "componentName", "hr", "componentValue", "80"));
+
+        when(ingestService.findUnknownPatientIds(anyList())).thenReturn(Set.of(99L));
+
+        mockMvc.perform(post("/clinicaldata/clinicals/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details", contains(99)));
+
+        verify(ingestService, never()).insertAll(anyList());
+    }
+
+    @Test
+    void saveClinicalDataBatch_emptyOrIncomplete_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/clinicaldata/clinicals/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Collections.emptyList())))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/clinicaldata/clinicals/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(Map.of("patientId", 1L)))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(ingestService);
+    }
+}
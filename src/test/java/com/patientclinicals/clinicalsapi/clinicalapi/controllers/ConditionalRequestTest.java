@@ -0,0 +1,114 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * ETag round trips against the real schema: polling with {@code If-None-Match}, and {@code If-Match}
+ * updates racing each other.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalRequestTest {
+
+    private static final String BODY = "{\"firstName\":\"Edsger\",\"lastName\":\"Dijkstra\",\"age\":72}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ClinicalDataRepository clinicalDataRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        patient = patientRepository.save(new Patient("Edsger", "Dijkstra", 71));
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteById(patient.getId());
+    }
+
+    @Test
+    void unchangedPatient_isNotModified_fromTheQueryCache() throws Exception {
+        mockMvc.perform(get("/patients/{id}", patient.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+
+        mockMvc.perform(get("/patients/{id}", patient.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified());
+        statistics.clear();
+        mockMvc.perform(get("/patients/{id}", patient.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void update_bumpsETag_andStaleIfMatchIsRejected() throws Exception {
+        mockMvc.perform(put("/patients/{id}", patient.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        // a second client still holding version 0
+        mockMvc.perform(put("/patients/{id}", patient.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/patients/{id}", patient.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        assertThat(patientRepository.findById(patient.getId())).get()
+                .extracting(Patient::getAge, Patient::getVersion).containsExactly(72, 1L);
+    }
+
+    @Test
+    void reading_isNotModifiedUntilItChanges() throws Exception {
+        ClinicalData reading = new ClinicalData("hr", "72", null);
+        reading.setPatient(patient);
+        reading = clinicalDataRepository.save(reading);
+
+        mockMvc.perform(get("/clinicaldata/{id}", reading.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified());
+
+        reading.setComponentValue("75");
+        clinicalDataRepository.save(reading);
+
+        mockMvc.perform(get("/clinicaldata/{id}", reading.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+}
@@ -0,0 +1,236 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.analytics.ReadingAggregationService;
+import com.patientclinicals.clinicalsapi.clinicalapi.analytics.ReadingBucket;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.LatestReading;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.LatestVitalsService;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.stream.ReadingBroadcaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+public class PatientClinicalDataControllerTest {
+
+    private LatestVitalsService latestVitalsService;
+    private ReadingAggregationService aggregationService;
+    private ClinicalDataRepository clinicalDataRepository;
+    private PatientRepository patientRepository;
+    private ReadingBroadcaster broadcaster;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        latestVitalsService = mock(LatestVitalsService.class);
+        aggregationService = mock(ReadingAggregationService.class);
+        clinicalDataRepository = mock(ClinicalDataRepository.class);
+        patientRepository = mock(PatientRepository.class);
+        broadcaster = mock(ReadingBroadcaster.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new PatientClinicalDataController(latestVitalsService, aggregationService,
+                        clinicalDataRepository, patientRepository, broadcaster)).build();
+    }
+
+    private ClinicalData makeClinicalData(Long id, String name, String value, String at) {
+        ClinicalData cd = new ClinicalData(name, value, Timestamp.from(Instant.parse(at)));
+        cd.setId(id);
+        return cd;
+    }
+
+    @Test
+    void list_withComponentAndRange_queriesIndexedRange() throws Exception {
+        Instant from = Instant.parse("2025-10-15T00:00:00Z");
+        Instant to = Instant.parse("2025-10-16T00:00:00Z");
+        when(clinicalDataRepository.findComponentRange(1L, "hr", Timestamp.from(from), 0L, Timestamp.from(to), Limit.of(100)))
+                .thenReturn(List.of(makeClinicalData(5L, "hr", "72", "2025-10-15T08:00:00Z")));
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata", 1L)
+                        .param("component", "hr")
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].componentValue", is("72")))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void list_fullPage_returnsNextLinkWithCursorOfLastReading() throws Exception {
+        when(clinicalDataRepository.findRange(eq(1L), any(), eq(0L), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(
+                        makeClinicalData(5L, "hr", "72", "2025-10-15T08:00:00Z"),
+                        makeClinicalData(9L, "bp", "120/80", "2025-10-15T08:00:00.123456Z")));
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata", 1L).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LINK, allOf(
+                        containsString("afterTime=2025-10-15T08:00:00.123456Z"),
+                        containsString("afterId=9"),
+                        containsString("limit=2"),
+                        org.hamcrest.Matchers.endsWith("rel=\"next\""))));
+    }
+
+    @Test
+    void list_withCursor_startsAfterCursor() throws Exception {
+        Instant cursor = Instant.parse("2025-10-15T08:00:00Z");
+        when(clinicalDataRepository.findComponentRange(eq(1L), eq("hr"), eq(Timestamp.from(cursor)), eq(5L), any(), any()))
+                .thenReturn(List.of());
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata", 1L)
+                        .param("component", "hr")
+                        .param("afterTime", cursor.toString())
+                        .param("afterId", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        verify(patientRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void list_emptyRangeOrHalfCursor_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata", 1L)
+                        .param("from", "2025-10-16T00:00:00Z")
+                        .param("to", "2025-10-15T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata", 1L)
+                        .param("afterTime", "2025-10-16T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void list_unknownPatient_returnsNotFound() throws Exception {
+        when(clinicalDataRepository.findRange(eq(4L), any(), anyLong(), any(), any())).thenReturn(List.of());
+        when(patientRepository.existsById(4L)).thenReturn(false);
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata", 4L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void latest_returnsReadingPerComponent() throws Exception {
+        when(latestVitalsService.findLatest(1L)).thenReturn(Optional.of(Map.of(
+                "hr", new LatestReading(7L, "72", Timestamp.valueOf("2025-10-15 08:00:00")),
+                "bp", new LatestReading(8L, "120/80", Timestamp.valueOf("2025-10-15 09:00:00")))));
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/latest", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hr.id", is(7)))
+                .andExpect(jsonPath("$.hr.componentValue", is("72")))
+                .andExpect(jsonPath("$.bp.componentValue", is("120/80")));
+    }
+
+    @Test
+    void latest_patientWithoutReadings_returnsEmptyObject() throws Exception {
+        when(latestVitalsService.findLatest(2L)).thenReturn(Optional.of(Map.of()));
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/latest", 2L))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{}"));
+    }
+
+    @Test
+    void latest_unknownPatient_returnsNotFound() throws Exception {
+        when(latestVitalsService.findLatest(3L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/latest", 3L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void aggregate_returnsBuckets() throws Exception {
+        Instant from = Instant.parse("2025-10-15T00:00:00Z");
+        Instant to = Instant.parse("2025-10-16T00:00:00Z");
+        when(aggregationService.aggregate(1L, "hr", from, to, Duration.ofHours(1))).thenReturn(List.of(
+                new ReadingBucket(from, 3, 60.0, 80.0, 70.0, null, null, null, "80"),
+                new ReadingBucket(from.plusSeconds(7200), 1, null, null, null, null, null, null, "n/a")));
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/aggregate", 1L)
+                        .param("component", "hr")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("interval", "PT1H"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].count", is(3)))
+                .andExpect(jsonPath("$[0].avg", is(70.0)))
+                .andExpect(jsonPath("$[0].last", is("80")))
+                .andExpect(jsonPath("$[1].min").value(nullValue()));
+    }
+
+    @Test
+    void aggregate_tooManyBucketsOrBadRange_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/aggregate", 1L)
+                        .param("component", "hr")
+                        .param("from", "2025-10-15T00:00:00Z")
+                        .param("to", "2025-10-22T00:00:00Z")
+                        .param("interval", "PT1S"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/aggregate", 1L)
+                        .param("component", "hr")
+                        .param("from", "2025-10-15T00:00:00Z")
+                        .param("to", "2025-10-16T00:00:00Z")
+                        .param("interval", "PT1.5S"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/aggregate", 1L)
+                        .param("component", "hr")
+                        .param("from", "2025-10-16T00:00:00Z")
+                        .param("to", "2025-10-15T00:00:00Z")
+                        .param("interval", "PT1H"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(aggregationService);
+    }
+
+    @Test
+    void aggregate_unknownPatient_returnsNotFound() throws Exception {
+        when(aggregationService.aggregate(eq(4L), eq("hr"), any(), any(), any())).thenReturn(List.of());
+        when(patientRepository.existsById(4L)).thenReturn(false);
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/aggregate", 4L)
+                        .param("component", "hr")
+                        .param("from", "2025-10-15T00:00:00Z")
+                        .param("to", "2025-10-16T00:00:00Z")
+                        .param("interval", "PT1H"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void stream_unknownPatient_returnsNotFound() throws Exception {
+        when(patientRepository.existsById(4L)).thenReturn(false);
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/stream", 4L))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(broadcaster);
+    }
+
+    @Test
+    void stream_atSubscriberLimit_returnsServiceUnavailable() throws Exception {
+        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(broadcaster.subscribe(1L, "hr")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/stream", 1L).param("component", "hr"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+}
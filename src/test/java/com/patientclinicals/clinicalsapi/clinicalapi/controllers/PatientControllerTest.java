@@ -2,6 +2,7 @@
 package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
 
 import static org.hamcrest.Matchers.*;
+import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -10,14 +11,27 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.PatientReadCoalescer;
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.PatientReadCoalescerProperties;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.events.ClinicalDataModifiedEvent;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.PatientSummary;
 import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.purge.PatientPurgeService;
+import com.patientclinicals.clinicalsapi.clinicalapi.purge.PurgeStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -25,6 +39,9 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 public class PatientControllerTest {
 
     private PatientRepository patientRepository;
+    private EntityManager entityManager;
+    private ApplicationEventPublisher eventPublisher;
+    private PatientPurgeService purgeService;
     private PatientController controller;
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
@@ -33,9 +50,13 @@ public class PatientControllerTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         patientRepository = mock(PatientRepository.class);
-        controller = new PatientController(patientRepository);
-        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        entityManager = mock(EntityManager.class);
         objectMapper = new ObjectMapper();
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        purgeService = mock(PatientPurgeService.class);
+        controller = new PatientController(patientRepository, entityManager, objectMapper, eventPublisher, purgeService,
+                new PatientReadCoalescer(new PatientReadCoalescerProperties(true), new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
 
     // Helper to create a Patient with only id set (other fields optional)
@@ -46,20 +67,64 @@ public class PatientControllerTest {
     }
 
     @Test
-    void list_returnsAllPatients() throws Exception {
+    void list_returnsFirstPage() throws Exception {
         Patient p1 = makePatient(1L);
         Patient p2 = makePatient(2L);
         List<Patient> list = Arrays.asList(p1, p2);
 
-        when(patientRepository.findAll()).thenReturn(list);
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenReturn(list);
 
-        mockMvc.perform(get("/patients"))
+        mockMvc.perform(get("/patients").accept("application/json, text/plain, */*"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"))
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].id", is(1)))
                 .andExpect(jsonPath("$[1].id", is(2)));
 
-        verify(patientRepository, times(1)).findAll();
+        verify(patientRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(PatientController.DEFAULT_PAGE_SIZE));
+        verify(patientRepository, never()).findAll();
+    }
+
+    @Test
+    void list_fullPage_returnsNextLink() throws Exception {
+        List<Patient> list = Arrays.asList(makePatient(11L), makePatient(12L));
+
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(2))).thenReturn(list);
+
+        mockMvc.perform(get("/patients").param("after", "10").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", containsString("after=12")))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void list_limitIsCapped() throws Exception {
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenReturn(List.of());
+
+        mockMvc.perform(get("/patients").param("limit", "1000000"))
+                .andExpect(status().isOk());
+
+        verify(patientRepository).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(PatientController.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    void stream_writesOnePatientPerLine_andDetachesEach() throws Exception {
+        Patient p1 = makePatient(1L);
+        Patient p2 = makePatient(2L);
+        when(patientRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(p1, p2));
+
+        String body = mockMvc.perform(get("/patients").accept(PatientController.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(PatientController.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assert lines.length == 2;
+        assert objectMapper.readValue(lines[0], Patient.class).getId().equals(1L);
+        assert objectMapper.readValue(lines[1], Patient.class).getId().equals(2L);
+        verify(entityManager).detach(p1);
+        verify(entityManager).detach(p2);
     }
 
     @Test
@@ -74,6 +139,43 @@ public class PatientControllerTest {
         verify(patientRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getById_found_returnsVersionAsETag() throws Exception {
+        Patient p = makePatient(1L);
+        p.setVersion(3L);
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(p));
+
+        mockMvc.perform(get("/patients/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        verify(patientRepository, never()).findVersionById(anyLong());
+    }
+
+    @Test
+    void getById_ifNoneMatchCurrent_returnsNotModifiedWithoutLoading() throws Exception {
+        when(patientRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(get("/patients/{id}", 1L).header("If-None-Match", "W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        verify(patientRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getById_ifNoneMatchStale_returnsPatient() throws Exception {
+        Patient p = makePatient(1L);
+        p.setVersion(4L);
+        when(patientRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(p));
+
+        mockMvc.perform(get("/patients/{id}", 1L).header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
     @Test
     void getById_notFound_returns404() throws Exception {
         when(patientRepository.findById(1L)).thenReturn(Optional.empty());
@@ -84,13 +186,79 @@ public class PatientControllerTest {
         verify(patientRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getById_doesNotExposeClinicalData() throws Exception {
+        Patient p = makePatient(1L);
+        p.setClinicalData(List.of(new ClinicalData("hr", "72", null)));
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(p));
+
+        mockMvc.perform(get("/patients/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinicalData").doesNotExist());
+
+        verify(patientRepository, never()).findWithClinicalDataById(anyLong());
+    }
+
+    @Test
+    void getById_includeClinicalData_usesFetchPlan() throws Exception {
+        Patient p = makePatient(1L);
+        p.setClinicalData(List.of(new ClinicalData("hr", "72", null), new ClinicalData("bp", "120/80", null)));
+        when(patientRepository.findWithClinicalDataById(1L)).thenReturn(Optional.of(p));
+
+        mockMvc.perform(get("/patients/{id}", 1L).param("include", "clinicalData"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.clinicalData", hasSize(2)))
+                .andExpect(jsonPath("$.clinicalData[1].componentValue", is("120/80")));
+
+        verify(patientRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getById_unknownInclude_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/patients/{id}", 1L).param("include", "everything"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void getSummary_found_returnsProjection() throws Exception {
+        when(patientRepository.findSummaryById(1L))
+                .thenReturn(Optional.of(new PatientSummary(1L, "Ada", "Lovelace", 36, 4L, null)));
+
+        mockMvc.perform(get("/patients/{id}/summary", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName", is("Ada")))
+                .andExpect(jsonPath("$.readingCount", is(4)));
+    }
+
+    @Test
+    void getSummary_notFound_returns404() throws Exception {
+        when(patientRepository.findSummaryById(1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/patients/{id}/summary", 1L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listSummaries_returnsKeysetPage() throws Exception {
+        when(patientRepository.findSummariesAfter(5L, Limit.of(1)))
+                .thenReturn(List.of(new PatientSummary(6L, "Alan", "Turing", 41, 0L, null)));
+
+        mockMvc.perform(get("/patients/summaries").param("after", "5").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", containsString("after=6")))
+                .andExpect(jsonPath("$[0].id", is(6)));
+    }
+
     @Test
     void create_savesPatient_andReturnsCreatedWithLocation() throws Exception {
         Patient toCreate = new Patient(); // id null
         // set any other fields if desired, e.g., name/age, but id is sufficient for controller behavior
         Patient saved = makePatient(1L);
 
-        when(patientRepository.save(any(Patient.class))).thenReturn(saved);
+        when(patientRepository.create(any(Patient.class))).thenReturn(saved);
 
         String body = objectMapper.writeValueAsString(toCreate);
 
@@ -102,7 +270,7 @@ public class PatientControllerTest {
                 .andExpect(jsonPath("$.id", is(1)));
 
         ArgumentCaptor<Patient> captor = ArgumentCaptor.forClass(Patient.class);
-        verify(patientRepository, times(1)).save(captor.capture());
+        verify(patientRepository, times(1)).create(captor.capture());
         // id on the saved argument from controller may be null (controller doesn't set id on create)
         // but verify object passed to save is the same structure (at least not null)
         Patient passed = captor.getValue();
@@ -111,62 +279,203 @@ public class PatientControllerTest {
     }
 
     @Test
-    void update_existingId_updatesAndReturnsOk() throws Exception {
-        Patient incoming = new Patient(); // body without id
+    void update_existingId_updatesWithOneStatementAndReturnsOk() throws Exception {
+        Patient incoming = new Patient("Ada", "Lovelace", 36); // body without id
         String body = objectMapper.writeValueAsString(incoming);
-        Patient saved = makePatient(1L);
 
-        when(patientRepository.existsById(1L)).thenReturn(true);
-        when(patientRepository.save(any(Patient.class))).thenReturn(saved);
+        Patient stored = new Patient("Ada", "Lovelace", 36);
+        stored.setId(1L);
+        stored.setVersion(1L);
+        when(patientRepository.updateById(1L, null, "Ada", "Lovelace", 36)).thenReturn(1);
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(stored));
 
         mockMvc.perform(put("/patients/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(body))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id", is(1)));
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.lastName", is("Lovelace")));
+
+        // no existence check, load or merge before the UPDATE; the patient is only read back after it
+        InOrder order = inOrder(patientRepository);
+        order.verify(patientRepository).updateById(1L, null, "Ada", "Lovelace", 36);
+        order.verify(patientRepository).findById(1L);
+        verify(patientRepository, never()).existsById(anyLong());
+        verify(patientRepository, never()).create(any());
+    }
 
-        ArgumentCaptor<Patient> captor = ArgumentCaptor.forClass(Patient.class);
-        verify(patientRepository, times(1)).save(captor.capture());
-        Patient passed = captor.getValue();
-        // controller should set the id on the entity before saving
-        assert passed.getId() != null && passed.getId().equals(1L);
+    @Test
+    void update_missingField_returnsBadRequest() throws Exception {
+        mockMvc.perform(put("/patients/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Ada\"}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void update_ifMatchCurrentVersion_returnsNewETag() throws Exception {
+        Patient stored = new Patient("Ada", "Lovelace", 36);
+        stored.setId(1L);
+        stored.setVersion(4L);
+        when(patientRepository.updateById(1L, 3L, "Ada", "Lovelace", 36)).thenReturn(1);
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+        mockMvc.perform(put("/patients/{id}", 1L)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"age\":36}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void update_ifMatchStaleVersion_returnsPreconditionFailed() throws Exception {
+        when(patientRepository.updateById(1L, 3L, "Ada", "Lovelace", 36)).thenReturn(0);
+        when(patientRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        mockMvc.perform(put("/patients/{id}", 1L)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"age\":36}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error", containsString("modified")));
     }
 
     @Test
     void update_nonExistingId_returnsNotFound() throws Exception {
-        Patient incoming = new Patient();
+        Patient incoming = new Patient("Ada", "Lovelace", 36);
         String body = objectMapper.writeValueAsString(incoming);
 
-        when(patientRepository.existsById(1L)).thenReturn(false);
+        when(patientRepository.updateById(1L, null, "Ada", "Lovelace", 36)).thenReturn(0);
 
         mockMvc.perform(put("/patients/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(body))
                 .andExpect(status().isNotFound());
 
-        verify(patientRepository, never()).save(any());
+        verify(patientRepository, never()).findVersionById(anyLong());
+    }
+
+    @Test
+    void patch_updatesOnlyThePresentFields() throws Exception {
+        when(patientRepository.updateById(1L, null, null, null, 37)).thenReturn(1);
+
+        mockMvc.perform(patch("/patients/{id}", 1L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"age\":37}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().doesNotExist("ETag"));
+
+        verify(patientRepository).updateById(1L, null, null, null, 37);
+    }
+
+    @Test
+    void patch_emptyDocument_changesNothing() throws Exception {
+        when(patientRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(patch("/patients/{id}", 1L)
+                        .contentType("application/merge-patch+json")
+                        .content("{}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"3\""));
+        mockMvc.perform(patch("/patients/{id}", 1L)
+                        .header("If-Match", "\"2\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(patientRepository, never()).updateById(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void patch_ifMatchOnMissingPatient_returnsNotFound() throws Exception {
+        when(patientRepository.updateById(1L, 2L, "Ada", null, null)).thenReturn(0);
+        when(patientRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(patch("/patients/{id}", 1L)
+                        .header("If-Match", "\"2\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"firstName\":\"Ada\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void patch_invalidDocument_returnsBadRequest() throws Exception {
+        for (String patch : List.of("[]", "{\"age\":null}", "{\"id\":2}", "{\"age\":\"old\"}")) {
+            mockMvc.perform(patch("/patients/{id}", 1L)
+                            .contentType("application/merge-patch+json")
+                            .content(patch))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void patch_plainJson_isUnsupported() throws Exception {
+        mockMvc.perform(patch("/patients/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":37}"))
+                .andExpect(status().isUnsupportedMediaType());
     }
 
     @Test
     void delete_existingId_deletesAndReturnsNoContent() throws Exception {
-        when(patientRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(patientRepository).deleteById(1L);
+        when(patientRepository.removeWithClinicalDataById(1L)).thenReturn(1);
 
         mockMvc.perform(delete("/patients/{id}", 1L))
                 .andExpect(status().isNoContent());
 
-        verify(patientRepository, times(1)).existsById(1L);
-        verify(patientRepository, times(1)).deleteById(1L);
+        verify(patientRepository, never()).existsById(anyLong());
+        verify(patientRepository, never()).deleteById(anyLong());
+        verify(eventPublisher).publishEvent(ClinicalDataModifiedEvent.of(1L));
     }
 
     @Test
     void delete_nonExistingId_returnsNotFound() throws Exception {
-        when(patientRepository.existsById(1L)).thenReturn(false);
+        when(patientRepository.removeWithClinicalDataById(1L)).thenReturn(0);
 
         mockMvc.perform(delete("/patients/{id}", 1L))
                 .andExpect(status().isNotFound());
 
-        verify(patientRepository, times(1)).existsById(1L);
-        verify(patientRepository, never()).deleteById(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void delete_largeHistory_startsBackgroundPurge() throws Exception {
+        when(purgeService.isLarge(1L)).thenReturn(true);
+        when(purgeService.submit(1L)).thenReturn(new PurgeStatus(1L, PurgeStatus.State.QUEUED, null, 0, null, null, null));
+
+        mockMvc.perform(delete("/patients/{id}", 1L))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", endsWith("/patients/1/purge")))
+                .andExpect(jsonPath("$.state", is("QUEUED")));
+
+        verify(patientRepository, never()).removeWithClinicalDataById(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void delete_whilePurging_returnsRunningPurge() throws Exception {
+        when(purgeService.isPurging(1L)).thenReturn(true);
+        when(purgeService.submit(1L)).thenReturn(new PurgeStatus(1L, PurgeStatus.State.RUNNING, 20000L, 5000, null, null, null));
+
+        mockMvc.perform(delete("/patients/{id}", 1L))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.deleted", is(5000)));
+
+        verify(purgeService, never()).isLarge(anyLong());
+    }
+
+    @Test
+    void getPurge_unknown_returns404() throws Exception {
+        when(purgeService.status(1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/patients/{id}/purge", 1L))
+                .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+}
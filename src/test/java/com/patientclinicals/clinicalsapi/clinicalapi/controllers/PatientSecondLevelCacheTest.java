@@ -0,0 +1,108 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the JDBC statements behind repeated {@code GET /patients/{id}} and last-name searches, with the
+ * second-level cache in use and with every region evicted before each request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PatientSecondLevelCacheTest {
+
+    private static final int REQUESTS = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        patient = patientRepository.save(new Patient("Grace", "Hopper", 85));
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteById(patient.getId());
+    }
+
+    private long statementsFor(String uri, boolean evictBeforeEachRequest, Object... uriVariables) throws Exception {
+        statistics.clear();
+        for (int i = 0; i < REQUESTS; i++) {
+            if (evictBeforeEachRequest) {
+                sessionFactory.getCache().evictAllRegions();
+            }
+            mockMvc.perform(get(uri, uriVariables)).andExpect(status().isOk());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void getById_repeatedRequests_areServedWithoutDatabaseRoundTrips() throws Exception {
+        long uncached = statementsFor("/patients/{id}", true, patient.getId());
+        long cached = statementsFor("/patients/{id}", false, patient.getId());
+
+        assertThat(uncached).isEqualTo(REQUESTS);
+        assertThat(cached).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("patient").getHitCount()).isEqualTo(REQUESTS);
+    }
+
+    @Test
+    void searchByLastName_repeatedRequests_areServedFromQueryCache() throws Exception {
+        long uncached = statementsFor("/patients?lastName={lastName}", true, "hopper");
+        long cached = statementsFor("/patients?lastName={lastName}", false, "hopper");
+
+        assertThat(uncached).isEqualTo(REQUESTS);
+        assertThat(cached).isLessThanOrEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isGreaterThanOrEqualTo(REQUESTS - 1);
+    }
+
+    @Test
+    void update_refreshesCachedPatient() throws Exception {
+        mockMvc.perform(get("/patients/{id}", patient.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(put("/patients/{id}", patient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Grace\",\"lastName\":\"Murray\",\"age\":86}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/patients/{id}", patient.getId()))
+                .andExpect(jsonPath("$.lastName", is("Murray")))
+                .andExpect(jsonPath("$.age", is(86)));
+        mockMvc.perform(get("/patients?lastName={lastName}", "hopper"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+}
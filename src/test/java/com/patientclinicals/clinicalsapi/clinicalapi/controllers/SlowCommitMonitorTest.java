@@ -0,0 +1,69 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionExecution;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SlowCommitMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TransactionExecution write = mock(TransactionExecution.class);
+    private final TransactionExecution read = mock(TransactionExecution.class);
+
+    private SlowCommitMonitor monitor(Duration settleTime) {
+        when(read.isReadOnly()).thenReturn(true);
+        return new SlowCommitMonitor(new ChangeFeedProperties(settleTime), meterRegistry);
+    }
+
+    private double slowCommits() {
+        return meterRegistry.get("clinicals.changes.slow.commits").counter().count();
+    }
+
+    @Test
+    void writeCommittedAfterTheSettleTime_isCounted() throws Exception {
+        SlowCommitMonitor monitor = monitor(Duration.ofMillis(1));
+
+        monitor.afterBegin(write, null);
+        Thread.sleep(5);
+        monitor.afterCommit(write, null);
+
+        assertThat(slowCommits()).isEqualTo(1);
+    }
+
+    @Test
+    void fastWrites_readOnlyAndRolledBackTransactions_areNotCounted() throws Exception {
+        SlowCommitMonitor monitor = monitor(Duration.ofHours(1));
+        monitor.afterBegin(write, null);
+        monitor.afterCommit(write, null);
+
+        monitor = monitor(Duration.ofMillis(1));
+        monitor.afterBegin(read, null);
+        monitor.afterBegin(write, null);
+        Thread.sleep(5);
+        monitor.afterRollback(write, null);
+        monitor.afterCommit(read, null);
+
+        assertThat(slowCommits()).isZero();
+    }
+
+    @Test
+    void suspendedTransaction_isTimedFromItsOwnBegin() throws Exception {
+        SlowCommitMonitor monitor = monitor(Duration.ofMillis(20));
+        TransactionExecution inner = mock(TransactionExecution.class);
+
+        monitor.afterBegin(write, null);
+        Thread.sleep(30);
+        monitor.afterBegin(inner, null);
+        monitor.afterCommit(inner, null);
+        assertThat(slowCommits()).isZero();
+
+        monitor.afterCommit(write, null);
+        assertThat(slowCommits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,125 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.sql.Timestamp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ChangeLogRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.web.MergePatch;
+
+/**
+ * The bulk UPDATE / DELETE write paths against the real schema: untouched columns keep their values, the
+ * derived numeric columns follow the raw value, and reads after a write do not see cached entities.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TargetedWriteTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ClinicalDataRepository clinicalDataRepository;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    private Patient patient;
+    private ClinicalData reading;
+
+    @BeforeEach
+    void setUp() {
+        patient = patientRepository.save(new Patient("Alan", "Turing", 41));
+        reading = new ClinicalData("bp", "120/80", Timestamp.valueOf("2025-10-15 08:00:00"));
+        reading.setPatient(patient);
+        reading = clinicalDataRepository.save(reading);
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.removeWithClinicalDataById(patient.getId());
+    }
+
+    @Test
+    void patchPatient_changesOnlyThePatchedField() throws Exception {
+        // warm the second-level cache, the patch must not leave it stale
+        mockMvc.perform(get("/patients/{id}", patient.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(patch("/patients/{id}", patient.getId())
+                        .contentType(MergePatch.MEDIA_TYPE).content("{\"age\":42}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/patients/{id}", patient.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.firstName", is("Alan")))
+                .andExpect(jsonPath("$.age", is(42)));
+    }
+
+    @Test
+    void emptyPatch_leavesVersionAndChangeLogAlone() throws Exception {
+        long changes = changeLogRepository.count();
+
+        mockMvc.perform(patch("/patients/{id}", patient.getId()).header("If-Match", "\"0\"")
+                        .contentType(MergePatch.MEDIA_TYPE).content("{}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"0\""));
+
+        assertThat(patientRepository.findVersionById(patient.getId())).contains(0L);
+        assertThat(changeLogRepository.count()).isEqualTo(changes);
+    }
+
+    @Test
+    void putReading_keepsPatient_andRederivesNumericValue() throws Exception {
+        mockMvc.perform(put("/clinicaldata/{id}", reading.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"componentName\":\"bp\",\"componentValue\":\"130/85\",\"measuredDateTime\":\"2025-10-15T09:00:00Z\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.componentValue", is("130/85")));
+
+        mockMvc.perform(patch("/clinicaldata/{id}", reading.getId()).header("If-Match", "\"1\"")
+                        .contentType(MergePatch.MEDIA_TYPE).content("{\"componentName\":\"blood pressure\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"2\""));
+
+        ClinicalData stored = clinicalDataRepository.findById(reading.getId()).orElseThrow();
+        assertThat(stored.getComponentName()).isEqualTo("blood pressure");
+        assertThat(stored.getComponentValue()).isEqualTo("130/85");
+        assertThat(stored.getPrimaryValue()).isEqualTo(130.0);
+        assertThat(stored.getSecondaryValue()).isEqualTo(85.0);
+        assertThat(stored.getVersion()).isEqualTo(2L);
+        assertThat(clinicalDataRepository.findPatientIdById(reading.getId())).contains(patient.getId());
+    }
+
+    @Test
+    void deletePatient_removesItsReadings() throws Exception {
+        mockMvc.perform(get("/clinicaldata/{id}", reading.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(delete("/patients/{id}", patient.getId())).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/clinicaldata/{id}", reading.getId())).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/patients/{id}", patient.getId())).andExpect(status().isNotFound());
+    }
+}
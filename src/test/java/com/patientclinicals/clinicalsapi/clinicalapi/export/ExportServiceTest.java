@@ -0,0 +1,152 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+/**
+ * Exports run in the background and produce gzip CSV limited to the requested time range, downloadable once
+ * complete; under Tomcat the download is handed to sendfile instead of being copied.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExportServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ClinicalDataRepository clinicalDataRepository;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = patientRepository.create(new Patient("Export", "O'Neil, Jr.", 61));
+        for (String time : List.of("2024-03-01 08:00:00", "2024-03-01 09:00:00", "2024-03-02 08:00:00")) {
+            ClinicalData reading = new ClinicalData("note", "stable, \"ok\"", Timestamp.valueOf(time));
+            reading.setPatient(patient);
+            clinicalDataRepository.create(reading);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.removeWithClinicalDataById(patient.getId());
+    }
+
+    private JsonNode json(MvcResult result) throws IOException {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private String submitAndAwait(String type, String from, String to) throws Exception {
+        var request = post("/exports").param("type", type);
+        if (from != null) {
+            request.param("from", from).param("to", to);
+        }
+        MvcResult accepted = mockMvc.perform(request).andExpect(status().isAccepted()).andReturn();
+        String id = json(accepted).get("id").asText();
+        assertThat(accepted.getResponse().getHeader("Location")).isEqualTo("http://localhost/exports/" + id);
+
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+        JsonNode status = json(mockMvc.perform(get("/exports/{id}", id)).andReturn());
+        while (!status.get("finished").asBoolean() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(20);
+            status = json(mockMvc.perform(get("/exports/{id}", id)).andReturn());
+        }
+        assertThat(status.get("state").asText()).isEqualTo("COMPLETED");
+        return id;
+    }
+
+    private static List<String> gunzipLines(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    @Test
+    void clinicalDataExport_containsOnlyTheRequestedRange() throws Exception {
+        String id = submitAndAwait("clinicaldata", "2024-03-01T00:00:00Z", "2024-03-02T00:00:00Z");
+
+        MvcResult download = mockMvc.perform(get("/exports/{id}/file", id))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"" + id + ".csv.gz\""))
+                .andReturn();
+
+        List<String> lines = gunzipLines(download.getResponse().getContentAsByteArray());
+        assertThat(lines.get(0)).isEqualTo("id,patient_id,component_name,component_value,measured_date_time");
+        List<String> rows = lines.stream().filter(line -> line.contains("," + patient.getId() + ",")).toList();
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0)).endsWith(",note,\"stable, \"\"ok\"\"\"," + Timestamp.valueOf("2024-03-01 08:00:00").toInstant());
+    }
+
+    @Test
+    void patientExport_quotesFieldsThatNeedIt() throws Exception {
+        String id = submitAndAwait("patients", null, null);
+
+        byte[] body = mockMvc.perform(get("/exports/{id}/file", id)).andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(gunzipLines(body)).contains(patient.getId() + ",Export,\"O'Neil, Jr.\",61");
+    }
+
+    @Test
+    void download_underTomcat_usesSendfile() throws Exception {
+        String id = submitAndAwait("patients", null, null);
+
+        MvcResult result = mockMvc.perform(get("/exports/{id}/file", id)
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat((String) result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"))
+                .endsWith(id + ".csv.gz");
+        assertThat(result.getRequest().getAttribute("org.apache.tomcat.sendfile.end"))
+                .isEqualTo(result.getResponse().getContentLengthLong());
+    }
+
+    @Test
+    void invalidRequests_areRejected() throws Exception {
+        mockMvc.perform(post("/exports").param("type", "everything")).andExpect(status().isBadRequest());
+        mockMvc.perform(post("/exports").param("type", "patients").param("from", "2024-03-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/exports").param("type", "clinicaldata")
+                .param("from", "2024-03-02T00:00:00Z").param("to", "2024-03-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/exports/{id}/file", "unknown")).andExpect(status().isNotFound());
+    }
+}
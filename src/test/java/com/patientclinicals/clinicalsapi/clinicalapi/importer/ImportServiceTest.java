@@ -0,0 +1,187 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.importer.ImportStatus.State;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+/**
+ * Uploads are imported in parallel-parsed chunks (three lines each here), bad lines end up in the
+ * rejected-rows file, and an import resumed from an older checkpoint skips what it already stored.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"clinicals.import.chunk-size=3", "clinicals.import.parallelism=2"})
+class ImportServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ImportProperties properties;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ClinicalDataRepository clinicalDataRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = patientRepository.create(new Patient("Bulk", "Import", 40));
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.removeWithClinicalDataById(patient.getId());
+    }
+
+    private ImportStatus upload(String contentType, String body) throws Exception {
+        String json = mockMvc.perform(post("/imports").contentType(contentType).content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", containsString("/imports/")))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(json, ImportStatus.class);
+    }
+
+    private ImportStatus awaitFinished(String id) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+        ImportStatus status = importService.status(id).orElseThrow();
+        while (!status.isFinished() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+            status = importService.status(id).orElseThrow();
+        }
+        assertThat(status.isFinished()).isTrue();
+        return status;
+    }
+
+    private List<ClinicalData> readings() {
+        return clinicalDataRepository.findRange(patient.getId(), new Timestamp(0), 0L,
+                Timestamp.from(Instant.parse("9999-01-01T00:00:00Z")), Limit.unlimited());
+    }
+
+    @Test
+    void csv_importsGoodLines_andRejectsBadOnes() throws Exception {
+        long id = patient.getId();
+        String csv = "id,patient_id,component_name,component_value,measured_date_time\n"
+                + "1," + id + ",hr,72,2025-10-15T08:00:00Z\n"
+                + "2," + id + ",bp,\"120/80, seated\",2025-10-15T08:01:00Z\n"
+                + "3," + Long.MAX_VALUE + ",hr,70,2025-10-15T08:02:00Z\n"
+                + "\n"
+                + "5," + id + ",hr,,2025-10-15T08:03:00Z\n"
+                + "6," + id + ",hr,74,yesterday\n"
+                + "7," + id + ",temp,37.1,2025-10-15T08:04:00Z\n";
+
+        ImportStatus status = awaitFinished(upload("text/csv", csv).id());
+
+        assertThat(status.state()).isEqualTo(State.COMPLETED);
+        assertThat(status.lines()).isEqualTo(7);
+        assertThat(status.imported()).isEqualTo(3);
+        assertThat(status.rejected()).isEqualTo(3);
+        assertThat(readings()).extracting(ClinicalData::getComponentValue).containsExactly("72", "120/80, seated", "37.1");
+
+        String rejected = mockMvc.perform(get("/imports/{id}/rejected", status.id()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(rejected.lines()).hasSize(4);
+        assertThat(rejected).startsWith("line,error,record\n")
+                .contains("4,Unknown patient id " + Long.MAX_VALUE)
+                .contains("6,\"patientId, componentName and componentValue are required\"")
+                .contains("7,measured_date_time must be an ISO-8601 instant");
+    }
+
+    @Test
+    void ndjson_isImported() throws Exception {
+        long id = patient.getId();
+        String ndjson = "{\"patientId\":" + id + ",\"componentName\":\"hr\",\"componentValue\":\"71\"}\n"
+                + "{\"patientId\":" + id + ",\"componentName\":\"hr\",\"componentValue\":\"72\","
+                + "\"measuredDateTime\":\"2025-10-15T08:00:00Z\"}\n"
+                + "{not json\n";
+
+        ImportStatus status = awaitFinished(upload("application/x-ndjson", ndjson).id());
+
+        assertThat(status.state()).isEqualTo(State.COMPLETED);
+        assertThat(status.imported()).isEqualTo(2);
+        assertThat(status.rejected()).isEqualTo(1);
+        assertThat(readings()).hasSize(2);
+    }
+
+    @Test
+    void csvWithoutRequiredColumns_isRejectedUpFront() throws Exception {
+        mockMvc.perform(post("/imports").contentType("text/csv").content("patient_id,value\n1,2\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("CSV header must name patient_id, component_name and component_value"));
+    }
+
+    @Test
+    void completedImport_cannotBeResumed() throws Exception {
+        ImportStatus status = awaitFinished(upload("text/csv", "patient_id,component_name,component_value\n").id());
+
+        mockMvc.perform(post("/imports/{id}/resume", status.id()))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/imports/{id}/resume", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void importRestartedFromAnOlderCheckpoint_skipsWhatItStored() throws Exception {
+        long id = patient.getId();
+        String csv = "patient_id,component_name,component_value\n"
+                + id + ",hr,71\n" + id + ",hr,72\n" + id + ",hr,73\n" + id + ",hr,74\n";
+        ImportStatus done = awaitFinished(upload("text/csv", csv).id());
+        assertThat(done.imported()).isEqualTo(4);
+        Path directory = properties.directory();
+        // COMPLETED is only reported once the import has cleaned up after itself
+        assertThat(directory.resolve(done.id() + ImportService.UPLOAD_SUFFIX)).doesNotExist();
+
+        // as if the process died after storing every chunk but before checkpointing any of them
+        Files.writeString(directory.resolve(done.id() + ImportService.UPLOAD_SUFFIX), csv);
+        ImportStatus started = new ImportStatus(done.id(), done.format(), State.RUNNING, 0, 0, 0, 0,
+                done.startedAt(), null, null);
+        objectMapper.writeValue(directory.resolve(done.id() + ImportService.CHECKPOINT_SUFFIX).toFile(),
+                new ImportService.Checkpoint(started, 0));
+        importService.stop();
+        importService.start();
+
+        ImportStatus resumed = awaitFinished(done.id());
+        assertThat(resumed.state()).isEqualTo(State.COMPLETED);
+        assertThat(resumed.lines()).isEqualTo(4);
+        assertThat(resumed.imported()).isZero();
+        assertThat(resumed.skipped()).isEqualTo(4);
+        assertThat(readings()).hasSize(4);
+    }
+}
@@ -0,0 +1,109 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ChangeLogRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ClinicalDataIngestService.class)
+class ClinicalDataIngestServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ClinicalDataIngestService ingestService;
+
+    @Autowired
+    private ClinicalDataRepository clinicalDataRepository;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    private static ClinicalDataRequest request(Long patientId, String name, String value) {
+        ClinicalDataRequest r = new ClinicalDataRequest();
+        r.setPatientId(patientId);
+        r.setComponentName(name);
+        r.setComponentValue(value);
+        return r;
+    }
+
+    @Test
+    void findUnknownPatientIds_returnsOnlyMissingIds() {
+        Patient patient = em.persistFlushFind(new Patient("Ada", "Lovelace", 36));
+
+        assertThat(ingestService.findUnknownPatientIds(List.of(
+                request(patient.getId(), "hr", "72"),
+                request(patient.getId() + 1000, "hr", "72"))))
+                .containsExactly(patient.getId() + 1000);
+    }
+
+    @Test
+    void insertAll_persistsEveryReadingAcrossSeveralJdbcBatches() {
+        Patient patient = em.persistFlushFind(new Patient("Ada", "Lovelace", 36));
+        List<ClinicalDataRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requests.add(request(patient.getId(), "hr", String.valueOf(60 + i % 40)));
+        }
+
+        List<ClinicalData> saved = ingestService.insertAll(requests);
+
+        assertThat(saved).hasSize(120).allSatisfy(cd -> assertThat(cd.getId()).isNotNull());
+        assertThat(saved).extracting(ClinicalData::getId).doesNotHaveDuplicates();
+        assertThat(clinicalDataRepository.count()).isEqualTo(120);
+    }
+
+    @Test
+    void insertAllUnlogged_writesNoChangeLogEntries() {
+        Patient patient = em.persistFlushFind(new Patient("Ada", "Lovelace", 36));
+        List<ClinicalDataRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            requests.add(request(patient.getId(), "hr", String.valueOf(60 + i % 40)));
+        }
+
+        // other test classes leave change_log rows in the shared database
+        long changes = changeLogRepository.count();
+        long readings = clinicalDataRepository.count();
+
+        ingestService.insertAllUnlogged(requests);
+        assertThat(changeLogRepository.count()).isEqualTo(changes);
+
+        ingestService.insertAll(requests.subList(0, 1));
+        assertThat(changeLogRepository.count()).isEqualTo(changes + 1);
+        assertThat(clinicalDataRepository.count()).isEqualTo(readings + 61);
+    }
+
+    @Test
+    void replay_isIdempotent_andKeepsTheSpooledMeasurementTime() {
+        Patient patient = em.persistFlushFind(new Patient("Ada", "Lovelace", 36));
+        long measuredAt = java.sql.Timestamp.valueOf("2025-10-15 08:00:00").getTime();
+        List<SpooledReading> readings = List.of(
+                new SpooledReading("k-1", patient.getId(), "hr", "72", measuredAt),
+                new SpooledReading("k-2", patient.getId() + 1000, "hr", "80", measuredAt));
+
+        assertThat(ingestService.replay(readings)).hasSize(1);
+        assertThat(ingestService.replay(readings)).isEmpty();
+
+        List<ClinicalData> stored = clinicalDataRepository.findAll();
+        assertThat(stored).hasSize(1);
+        assertThat(stored.get(0).getIngestKey()).isEqualTo("k-1");
+        assertThat(stored.get(0).getMeasuredDateTime().getTime()).isEqualTo(measuredAt);
+    }
+}
@@ -0,0 +1,155 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ClinicalDataSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    private final ClinicalDataIngestService ingestService = mock(ClinicalDataIngestService.class);
+    private ClinicalDataSpool spool;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        spool = newSpool();
+        spool.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        spool.stop();
+    }
+
+    private ClinicalDataSpool newSpool() {
+        // long replay interval: the tests drive replay() themselves
+        SpoolProperties properties = new SpoolProperties(true, dir, DataSize.ofKilobytes(64), 2, Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        return new ClinicalDataSpool(properties, ingestService, new ObjectMapper(), meterRegistry);
+    }
+
+    private static ClinicalDataRequest request(long patientId, String value) {
+        ClinicalDataRequest r = new ClinicalDataRequest();
+        r.setPatientId(patientId);
+        r.setComponentName("hr");
+        r.setComponentValue(value);
+        return r;
+    }
+
+    @Test
+    void isDatabaseUnavailable_distinguishesConnectivityFromDataErrors() {
+        assertThat(ClinicalDataSpool.isDatabaseUnavailable(new CannotCreateTransactionException("down"))).isTrue();
+        assertThat(ClinicalDataSpool.isDatabaseUnavailable(new RuntimeException(new java.sql.SQLTransientConnectionException()))).isTrue();
+        assertThat(ClinicalDataSpool.isDatabaseUnavailable(new DataIntegrityViolationException("dup"))).isFalse();
+    }
+
+    @Test
+    void replay_writesInOrderAndInBatches() {
+        List<String> replayedValues = new ArrayList<>();
+        when(ingestService.replay(anyList())).thenAnswer(inv -> {
+            List<SpooledReading> batch = inv.getArgument(0);
+            assertThat(batch.size()).isLessThanOrEqualTo(2);
+            batch.forEach(r -> replayedValues.add(r.componentValue()));
+            return List.of();
+        });
+        ClinicalDataRequest withTime = request(1, "70");
+        withTime.setMeasuredDateTime(Timestamp.valueOf("2025-10-15 08:00:00"));
+        spool.append(withTime);
+        spool.appendAll(List.of(request(1, "71"), request(2, "72")));
+
+        spool.replay();
+
+        assertThat(replayedValues).containsExactly("70", "71", "72");
+        assertThat(spool.pendingEntries()).isZero();
+        verify(ingestService, times(2)).replay(anyList());
+        verify(ingestService).replay(argThat(batch -> batch.get(0).measuredAtMillis()
+                == Timestamp.valueOf("2025-10-15 08:00:00").getTime()));
+    }
+
+    @Test
+    void replay_keepsReadingsWhileDatabaseIsDown_andUsesSameIngestKeysOnRetry() {
+        List<String> keysOnFailure = new ArrayList<>();
+        when(ingestService.replay(anyList()))
+                .thenAnswer(inv -> {
+                    List<SpooledReading> batch = inv.getArgument(0);
+                    batch.forEach(r -> keysOnFailure.add(r.ingestKey()));
+                    throw new CannotCreateTransactionException("Communications link failure");
+                })
+                .thenReturn(List.of());
+        spool.append(request(1, "70"));
+
+        spool.replay();
+        assertThat(spool.pendingEntries()).isEqualTo(1);
+
+        spool.replay();
+        assertThat(spool.pendingEntries()).isZero();
+        verify(ingestService, times(2)).replay(argThat(batch -> batch.get(0).ingestKey().equals(keysOnFailure.get(0))));
+    }
+
+    @Test
+    void spooledReadings_surviveRestart() {
+        spool.append(request(1, "70"));
+        spool.stop();
+
+        spool = newSpool();
+        spool.start();
+
+        assertThat(spool.pendingEntries()).isEqualTo(1);
+    }
+
+    @Test
+    void replay_setsAsideReadingsTheDatabaseRejects_andReplaysTheRest() throws Exception {
+        List<String> replayedValues = new ArrayList<>();
+        when(ingestService.replay(anyList())).thenAnswer(inv -> {
+            List<SpooledReading> batch = inv.getArgument(0);
+            if (batch.stream().anyMatch(r -> r.componentValue().length() > 3)) {
+                throw new DataIntegrityViolationException("Data too long for column 'component_value'");
+            }
+            batch.forEach(r -> replayedValues.add(r.componentValue()));
+            return List.of();
+        });
+        spool.appendAll(List.of(request(1, "70"), request(1, "7000"), request(1, "72")));
+
+        spool.replay();
+
+        assertThat(replayedValues).containsExactly("70", "72");
+        assertThat(spool.pendingEntries()).isZero();
+        List<String> deadLetters = Files.readAllLines(dir.resolve(ClinicalDataSpool.DEAD_LETTER_FILE));
+        assertThat(deadLetters).singleElement().asString().contains("7000").contains("Data too long");
+        assertThat(meterRegistry.get("clinicals.ingest.spool.dead.lettered").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("clinicals.ingest.spool.replayed").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void appendAll_incompleteReading_spoolsNothing() {
+        assertThatThrownBy(() -> spool.appendAll(List.of(request(1, "70"), request(1, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(spool.pendingEntries()).isZero();
+    }
+}
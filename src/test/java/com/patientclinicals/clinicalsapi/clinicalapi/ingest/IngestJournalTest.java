@@ -0,0 +1,117 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IngestJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> payloads(List<IngestJournal.Entry> entries) {
+        return entries.stream().map(e -> new String(e.payload(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    void readsEntriesInAppendOrder_andCommitConsumesThem() throws IOException {
+        try (IngestJournal journal = new IngestJournal(dir, 4096)) {
+            assertThat(journal.isEmpty()).isTrue();
+            journal.append(bytes("a"));
+            journal.append(bytes("b"));
+            journal.append(bytes("c"));
+
+            List<IngestJournal.Entry> firstTwo = journal.read(2);
+            assertThat(payloads(firstTwo)).containsExactly("a", "b");
+            // reading does not consume
+            assertThat(payloads(journal.read(10))).containsExactly("a", "b", "c");
+
+            journal.commit(firstTwo.get(1).next());
+            assertThat(payloads(journal.read(10))).containsExactly("c");
+            assertThat(journal.pendingEntries()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void rollsOverSegments_andDeletesConsumedOnes() throws IOException {
+        try (IngestJournal journal = new IngestJournal(dir, 64)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append(bytes("reading-" + i));
+            }
+            assertThat(segmentFiles()).isGreaterThan(1);
+
+            List<IngestJournal.Entry> all = journal.read(100);
+            assertThat(all).hasSize(20);
+            assertThat(payloads(all).get(19)).isEqualTo("reading-19");
+
+            journal.commit(all.get(19).next());
+            assertThat(journal.isEmpty()).isTrue();
+            assertThat(segmentFiles()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void reopen_resumesFromCheckpoint_andKeepsAppending() throws IOException {
+        try (IngestJournal journal = new IngestJournal(dir, 128)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(bytes("r" + i));
+            }
+            journal.commit(journal.read(4).get(3).next());
+        }
+
+        try (IngestJournal reopened = new IngestJournal(dir, 128)) {
+            assertThat(reopened.pendingEntries()).isEqualTo(6);
+            reopened.append(bytes("r10"));
+            assertThat(payloads(reopened.read(100))).containsExactly("r4", "r5", "r6", "r7", "r8", "r9", "r10");
+        }
+    }
+
+    @Test
+    void reopen_ignoresTornTrailingRecord() throws IOException {
+        try (IngestJournal journal = new IngestJournal(dir, 4096)) {
+            journal.append(bytes("complete"));
+            journal.append(bytes("torn"));
+        }
+        // corrupt the payload of the last record so its checksum no longer matches
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        byte[] content = Files.readAllBytes(segment);
+        int tornPayload = 8 + "complete".length() + 8;
+        content[tornPayload] ^= 0x7f;
+        Files.write(segment, content);
+
+        try (IngestJournal reopened = new IngestJournal(dir, 4096)) {
+            assertThat(payloads(reopened.read(10))).containsExactly("complete");
+            reopened.append(bytes("next"));
+            assertThat(payloads(reopened.read(10))).containsExactly("complete", "next");
+        }
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegment() throws IOException {
+        try (IngestJournal journal = new IngestJournal(dir, 32)) {
+            assertThatThrownBy(() -> journal.append(new byte[64])).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
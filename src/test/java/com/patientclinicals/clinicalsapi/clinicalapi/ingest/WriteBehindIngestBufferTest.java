@@ -0,0 +1,169 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WriteBehindIngestBufferTest {
+
+    private final ClinicalDataIngestService ingestService = mock(ClinicalDataIngestService.class);
+    private final ClinicalDataSpool spool = mock(ClinicalDataSpool.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WriteBehindIngestBuffer buffer;
+
+    private WriteBehindIngestBuffer start(int capacity, int maxBatchSize, Duration flushInterval) {
+        when(ingestService.findUnknownPatientIds(anyList())).thenReturn(Set.of());
+        buffer = new WriteBehindIngestBuffer(
+                new WriteBehindProperties(true, capacity, maxBatchSize, flushInterval, Duration.ofSeconds(5)),
+                ingestService, spool, meterRegistry);
+        buffer.start();
+        return buffer;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.stop();
+        }
+    }
+
+    private static ClinicalDataRequest request(long patientId) {
+        ClinicalDataRequest r = new ClinicalDataRequest();
+        r.setPatientId(patientId);
+        r.setComponentName("hr");
+        r.setComponentValue("72");
+        return r;
+    }
+
+    @Test
+    void disabled_doesNotAcceptReadings() {
+        buffer = new WriteBehindIngestBuffer(
+                new WriteBehindProperties(false, 10, 10, Duration.ofMillis(10), Duration.ofSeconds(1)),
+                ingestService, spool, meterRegistry);
+        buffer.start();
+
+        assertThat(buffer.isEnabled()).isFalse();
+        assertThat(buffer.offer(request(1))).isFalse();
+    }
+
+    @Test
+    void fullBatch_isFlushedWithoutWaitingForTheInterval() {
+        start(100, 3, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(buffer.offer(request(1))).isTrue();
+        }
+
+        verify(ingestService, timeout(2000)).insertAll(argThat(list -> list.size() == 3));
+    }
+
+    @Test
+    void partialBatch_isFlushedAfterTheInterval() {
+        start(100, 50, Duration.ofMillis(50));
+
+        buffer.offer(request(1));
+
+        verify(ingestService, timeout(2000)).insertAll(argThat(list -> list.size() == 1));
+        // the flush is timed once insertAll has returned; stopping waits for the flusher
+        buffer.stop();
+        assertThat(meterRegistry.get("clinicals.ingest.flush").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void queueFull_rejectsAndCounts() {
+        List<ClinicalDataRequest> inserted = new ArrayList<>();
+        // keep the flusher busy so the queue can fill up
+        when(ingestService.insertAll(anyList())).thenAnswer(inv -> {
+            Thread.sleep(500);
+            inserted.addAll(inv.getArgument(0));
+            return List.of();
+        });
+        start(2, 1, Duration.ofMillis(10));
+
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (buffer.offer(request(1))) {
+                accepted++;
+            }
+        }
+
+        assertThat(accepted).isLessThan(10);
+        assertThat(meterRegistry.get("clinicals.ingest.rejected").counter().count()).isEqualTo(10 - accepted);
+    }
+
+    @Test
+    void stop_drainsQueuedReadings() {
+        start(100, 1000, Duration.ofMinutes(1));
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(request(1));
+        }
+
+        buffer.stop();
+
+        verify(ingestService, atLeastOnce()).insertAll(anyList());
+        assertThat(meterRegistry.get("clinicals.ingest.queue.depth").gauge().value()).isZero();
+        assertThat(buffer.offer(request(1))).isFalse();
+    }
+
+    @Test
+    void readingsForUnknownPatients_areDropped() {
+        start(100, 2, Duration.ofMinutes(1));
+        when(ingestService.findUnknownPatientIds(anyList())).thenReturn(Set.of(99L));
+
+        buffer.offer(request(1));
+        buffer.offer(request(99));
+
+        verify(ingestService, timeout(2000)).insertAll(argThat(list -> list.size() == 1 && list.get(0).getPatientId() == 1L));
+        assertThat(meterRegistry.get("clinicals.ingest.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void databaseUnavailable_spoolsBatchInsteadOfDropping() {
+        start(100, 2, Duration.ofMinutes(1));
+        when(spool.isEnabled()).thenReturn(true);
+        when(ingestService.findUnknownPatientIds(anyList())).thenThrow(new CannotCreateTransactionException("down"));
+
+        buffer.offer(request(1));
+        buffer.offer(request(2));
+
+        verify(spool, timeout(2000)).appendAll(argThat(list -> list.size() == 2));
+        assertThat(meterRegistry.get("clinicals.ingest.dropped").counter().count()).isZero();
+    }
+
+    @Test
+    void rejectedReading_isDeadLettered_andTheRestOfTheBatchIsWritten() {
+        List<ClinicalDataRequest> inserted = new ArrayList<>();
+        when(ingestService.insertAll(anyList())).thenAnswer(inv -> {
+            List<ClinicalDataRequest> batch = inv.getArgument(0);
+            if (batch.stream().anyMatch(r -> r.getPatientId() == 2L)) {
+                throw new DataIntegrityViolationException("Data too long for column 'component_value'");
+            }
+            inserted.addAll(batch);
+            return List.of();
+        });
+        start(100, 3, Duration.ofMinutes(1));
+
+        buffer.offer(request(1));
+        buffer.offer(request(2));
+        buffer.offer(request(3));
+
+        verify(spool, timeout(2000)).deadLetter(argThat(r -> r.getPatientId() == 2L), contains("Data too long"));
+        buffer.stop();
+        assertThat(inserted).extracting(ClinicalDataRequest::getPatientId).containsExactly(1L, 3L);
+        assertThat(meterRegistry.get("clinicals.ingest.dropped").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,86 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+
+class DroppingAsyncAppenderTest {
+
+    private static final int QUEUE_SIZE = 10;
+
+    private final LoggerContext context = new LoggerContext();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final DroppingAsyncAppender appender = new DroppingAsyncAppender();
+
+    // blocks the worker thread on the first event so the queue fills up behind it
+    private final AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        slow.setContext(context);
+        slow.start();
+        appender.setContext(context);
+        appender.setQueueSize(QUEUE_SIZE);
+        appender.addAppender(slow);
+        appender.start();
+        appender.doAppend(event(Level.INFO));
+        while (appender.getNumberOfElementsInQueue() > 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        appender.stop();
+    }
+
+    private LoggingEvent event(Level level) {
+        return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, "message", null, null);
+    }
+
+    @Test
+    void underPressure_dropsAndCountsLowSeverityOnly() {
+        for (int i = 0; i < QUEUE_SIZE; i++) {
+            appender.doAppend(event(Level.INFO));
+        }
+        // INFO is discarded once fewer than 20% of the slots are free
+        assertThat(appender.getNumberOfElementsInQueue()).isEqualTo(QUEUE_SIZE - 1);
+        assertThat(appender.getDroppedCount()).isEqualTo(1);
+
+        appender.doAppend(event(Level.WARN));
+        assertThat(appender.getNumberOfElementsInQueue()).isEqualTo(QUEUE_SIZE);
+        assertThat(appender.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fullQueue_dropsAndCountsEverything() {
+        for (int i = 0; i < QUEUE_SIZE + 3; i++) {
+            appender.doAppend(event(Level.ERROR));
+        }
+
+        assertThat(appender.getNumberOfElementsInQueue()).isEqualTo(QUEUE_SIZE);
+        assertThat(appender.getDroppedCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,49 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+class SamplingTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger controllerLogger = context.getLogger("com.example.controllers.PatientController");
+    private final SamplingTurboFilter filter = new SamplingTurboFilter();
+
+    SamplingTurboFilterTest() {
+        filter.setLoggerPrefix("com.example.controllers");
+        filter.setRate(4);
+    }
+
+    private long passed(Logger logger, Level level, String format, int calls) {
+        return IntStream.range(0, calls)
+                .mapToObj(i -> filter.decide(null, logger, level, format, null, null))
+                .filter(reply -> reply == FilterReply.NEUTRAL)
+                .count();
+    }
+
+    @Test
+    void keepsOneInRatePerMessage() {
+        assertThat(passed(controllerLogger, Level.INFO, "Returned {} patients", 100)).isEqualTo(25);
+        assertThat(passed(controllerLogger, Level.DEBUG, "Get patient by id={}", 8)).isEqualTo(2);
+    }
+
+    @Test
+    void warningsAndErrors_alwaysPass() {
+        assertThat(passed(controllerLogger, Level.WARN, "Patient {} not found", 10)).isEqualTo(10);
+        assertThat(passed(controllerLogger, Level.ERROR, "failed", 10)).isEqualTo(10);
+    }
+
+    @Test
+    void otherLoggersAndEnabledChecks_areNotSampled() {
+        assertThat(passed(context.getLogger("com.example.service.Ingest"), Level.INFO, "Flushed {}", 10)).isEqualTo(10);
+        assertThat(passed(controllerLogger, Level.INFO, null, 10)).isEqualTo(10);
+    }
+}
@@ -0,0 +1,30 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class NumericValueTest {
+
+    @Test
+    void parse_singleNumber() {
+        assertThat(NumericValue.parse("72")).isEqualTo(new NumericValue(72.0, null));
+        assertThat(NumericValue.parse(" 5.8 ")).isEqualTo(new NumericValue(5.8, null));
+        assertThat(NumericValue.parse("-1.5")).isEqualTo(new NumericValue(-1.5, null));
+    }
+
+    @Test
+    void parse_compoundValue() {
+        assertThat(NumericValue.parse("120/80")).isEqualTo(new NumericValue(120.0, 80.0));
+        assertThat(NumericValue.parse("120 / 80")).isEqualTo(new NumericValue(120.0, 80.0));
+    }
+
+    @Test
+    void parse_nonNumeric_hasNoReading() {
+        assertThat(NumericValue.parse("n/a")).isEqualTo(NumericValue.NONE);
+        assertThat(NumericValue.parse("72 bpm")).isEqualTo(NumericValue.NONE);
+        assertThat(NumericValue.parse("1/2/3")).isEqualTo(NumericValue.NONE);
+        assertThat(NumericValue.parse("NaN")).isEqualTo(NumericValue.NONE);
+        assertThat(NumericValue.parse(null)).isEqualTo(NumericValue.NONE);
+    }
+}
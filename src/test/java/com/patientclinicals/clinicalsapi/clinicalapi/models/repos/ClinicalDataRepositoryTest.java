@@ -0,0 +1,123 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models.repos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ClinicalDataRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ClinicalDataRepository clinicalDataRepository;
+
+    private Patient ada;
+    private Patient alan;
+    private ClinicalData latestHr;
+
+    @BeforeEach
+    void setUp() {
+        ada = em.persist(new Patient("Ada", "Lovelace", 36));
+        alan = em.persist(new Patient("Alan", "Turing", 41));
+        addReading(ada, "hr", "70", Timestamp.valueOf("2025-10-15 08:00:00"));
+        latestHr = addReading(ada, "hr", "75", Timestamp.valueOf("2025-10-15 10:00:00"));
+        addReading(ada, "bp", "120/80", Timestamp.valueOf("2025-10-15 09:00:00"));
+        addReading(alan, "hr", "90", Timestamp.valueOf("2025-10-16 10:00:00"));
+        em.flush();
+        em.clear();
+    }
+
+    private ClinicalData addReading(Patient patient, String name, String value, Timestamp at) {
+        ClinicalData cd = new ClinicalData(name, value, at);
+        cd.setPatient(patient);
+        return em.persist(cd);
+    }
+
+    @Test
+    void findLatestPerComponent_returnsNewestReadingOfEachComponent() {
+        assertThat(clinicalDataRepository.findLatestPerComponent(ada.getId()))
+                .extracting(ClinicalData::getComponentName, ClinicalData::getComponentValue)
+                .containsExactlyInAnyOrder(
+                        tuple("hr", "75"),
+                        tuple("bp", "120/80"));
+    }
+
+    @Test
+    void findLatestPerComponent_patientWithoutReadings_isEmpty() {
+        Patient empty = em.persistFlushFind(new Patient("Grace", "Hopper", 85));
+
+        assertThat(clinicalDataRepository.findLatestPerComponent(empty.getId())).isEmpty();
+    }
+
+    @Test
+    void findComponentRange_pagesInTimeOrderAcrossEqualTimestamps() {
+        Timestamp at = Timestamp.valueOf("2025-10-15 12:00:00");
+        ClinicalData first = addReading(ada, "hr", "80", at);
+        ClinicalData second = addReading(ada, "hr", "81", at);
+        addReading(ada, "hr", "82", Timestamp.valueOf("2025-10-16 12:00:00"));
+        em.flush();
+        em.clear();
+        Timestamp from = Timestamp.valueOf("2025-10-15 09:00:00");
+        Timestamp to = Timestamp.valueOf("2025-10-16 00:00:00");
+
+        List<ClinicalData> page1 = clinicalDataRepository.findComponentRange(ada.getId(), "hr", from, 0L, to, Limit.of(2));
+        ClinicalData last = page1.get(page1.size() - 1);
+        List<ClinicalData> page2 = clinicalDataRepository.findComponentRange(ada.getId(), "hr",
+                last.getMeasuredDateTime(), last.getId(), to, Limit.of(2));
+
+        assertThat(page1).extracting(ClinicalData::getComponentValue).containsExactly("75", "80");
+        assertThat(page2).extracting(ClinicalData::getId).containsExactly(second.getId());
+        assertThat(first.getId()).isLessThan(second.getId());
+    }
+
+    @Test
+    void findRange_includesEveryComponent() {
+        List<ClinicalData> readings = clinicalDataRepository.findRange(ada.getId(),
+                Timestamp.valueOf("2025-10-15 00:00:00"), 0L, Timestamp.valueOf("2025-10-16 00:00:00"), Limit.of(10));
+
+        assertThat(readings).extracting(ClinicalData::getComponentValue).containsExactly("70", "120/80", "75");
+    }
+
+    @Test
+    void save_derivesNumericColumnsOnInsertAndUpdate() {
+        ClinicalData bp = addReading(ada, "bp", "120/80", Timestamp.valueOf("2025-10-15 11:00:00"));
+        em.flush();
+        em.clear();
+
+        ClinicalData stored = clinicalDataRepository.findById(bp.getId()).orElseThrow();
+        assertThat(stored.getPrimaryValue()).isEqualTo(120.0);
+        assertThat(stored.getSecondaryValue()).isEqualTo(80.0);
+
+        stored.setComponentValue("unreadable");
+        em.flush();
+        em.clear();
+
+        ClinicalData updated = clinicalDataRepository.findById(bp.getId()).orElseThrow();
+        assertThat(updated.getPrimaryValue()).isNull();
+        assertThat(updated.getSecondaryValue()).isNull();
+    }
+
+    @Test
+    void findPatientIdById_returnsOwningPatient() {
+        assertThat(clinicalDataRepository.findPatientIdById(latestHr.getId())).contains(ada.getId());
+        assertThat(clinicalDataRepository.findPatientIdById(latestHr.getId() + 1000)).isEmpty();
+    }
+}
@@ -0,0 +1,99 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.models.repos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.PatientSummary;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PatientRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Patient withReadings;
+    private Patient withoutReadings;
+
+    @BeforeEach
+    void setUp() {
+        withReadings = em.persist(new Patient("Ada", "Lovelace", 36));
+        withoutReadings = em.persist(new Patient("Alan", "Turing", 41));
+        addReading(withReadings, "hr", "72", Timestamp.valueOf("2025-10-15 08:00:00"));
+        addReading(withReadings, "bp", "120/80", Timestamp.valueOf("2025-10-15 09:30:00"));
+        em.flush();
+        em.clear();
+    }
+
+    private void addReading(Patient patient, String name, String value, Timestamp at) {
+        ClinicalData cd = new ClinicalData(name, value, at);
+        cd.setPatient(patient);
+        em.persist(cd);
+    }
+
+    @Test
+    void findById_doesNotLoadReadings() {
+        Patient p = patientRepository.findById(withReadings.getId()).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(p.getClinicalData())).isFalse();
+    }
+
+    @Test
+    void findWithClinicalDataById_loadsReadingsInSameSelect() {
+        Patient p = patientRepository.findWithClinicalDataById(withReadings.getId()).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(p.getClinicalData())).isTrue();
+        assertThat(p.getClinicalData()).hasSize(2);
+    }
+
+    @Test
+    void findSummaryById_aggregatesReadings() {
+        PatientSummary summary = patientRepository.findSummaryById(withReadings.getId()).orElseThrow();
+
+        assertThat(summary.firstName()).isEqualTo("Ada");
+        assertThat(summary.readingCount()).isEqualTo(2);
+        assertThat(summary.latestReadingTime()).isNotNull();
+    }
+
+    @Test
+    void findSummaryById_patientWithoutReadings() {
+        PatientSummary summary = patientRepository.findSummaryById(withoutReadings.getId()).orElseThrow();
+
+        assertThat(summary.readingCount()).isZero();
+        assertThat(summary.latestReadingTime()).isNull();
+    }
+
+    @Test
+    void findSummariesAfter_usesKeysetAndLimit() {
+        List<PatientSummary> first = patientRepository.findSummariesAfter(0L, Limit.of(1));
+        List<PatientSummary> second = patientRepository.findSummariesAfter(first.get(0).id(), Limit.of(1));
+
+        assertThat(first).extracting(PatientSummary::id).containsExactly(withReadings.getId());
+        assertThat(second).extracting(PatientSummary::id).containsExactly(withoutReadings.getId());
+    }
+
+    @Test
+    void findByIdGreaterThan_returnsPageInIdOrder() {
+        List<Patient> page = patientRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(10));
+
+        assertThat(page).extracting(Patient::getId).containsExactly(withReadings.getId(), withoutReadings.getId());
+    }
+}
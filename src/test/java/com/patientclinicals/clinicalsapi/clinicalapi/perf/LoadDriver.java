@@ -0,0 +1,237 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.perf;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.convert.DurationStyle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Closed-loop HTTP load driver for the API under {@code /patientservices}. A fixed number of clients
+ * (virtual threads) each send requests back to back, cycling through the endpoint mix, for a warmup
+ * period and then a measured period; throughput and p50/p99/p999 latency are reported per endpoint.
+ * <p>
+ * Patient and reading ids are discovered from the running service, so it works against any populated
+ * database, typically the {@code perf} profile:
+ * <pre>
+ * mvn -Pperf spring-boot:run
+ * mvn -Pperf test-compile exec:java -Dexec.args="--concurrency=64 --duration=60s"
+ * </pre>
+ * Options: {@code --base-url} (default {@code http://localhost:8080/patientservices}), {@code --concurrency},
+ * {@code --warmup}, {@code --duration} and {@code --writes=false} to leave out the POST endpoints.
+ */
+public final class LoadDriver {
+
+    /**
+     * One endpoint of the mix; {@code request} builds a request for a randomly chosen target.
+     */
+    public record Endpoint(String name, Function<ThreadLocalRandom, HttpRequest> request) {
+    }
+
+    public record EndpointStats(String name, long requests, long errors, double throughput,
+                                double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+    }
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String CLIENT_HEADER = "X-API-Key";
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    public LoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        LoadDriver driver = new LoadDriver(options.getOrDefault("base-url", "http://localhost:8080/patientservices"));
+        List<Endpoint> endpoints = driver.discoverEndpoints(Boolean.parseBoolean(options.getOrDefault("writes", "true")));
+        List<EndpointStats> stats = driver.run(endpoints,
+                Integer.parseInt(options.getOrDefault("concurrency", "32")),
+                DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s")),
+                DurationStyle.detectAndParse(options.getOrDefault("duration", "30s")));
+        print(stats, System.out);
+    }
+
+    /**
+     * The standard endpoint mix, built from patient and reading ids read from the service.
+     */
+    public List<Endpoint> discoverEndpoints(boolean writes) throws IOException, InterruptedException {
+        List<Long> patientIds = new ArrayList<>();
+        List<String> lastNames = new ArrayList<>();
+        for (JsonNode patient : getJson("/patients?limit=1000")) {
+            patientIds.add(patient.get("id").asLong());
+            lastNames.add(patient.get("lastName").asText());
+        }
+        if (patientIds.isEmpty()) {
+            throw new IllegalStateException("No patients at " + baseUrl + "; start the service with the perf profile");
+        }
+        List<Long> readingIds = new ArrayList<>();
+        for (JsonNode reading : getJson("/patients/" + patientIds.get(0) + "/clinicaldata?limit=1000")) {
+            readingIds.add(reading.get("id").asLong());
+        }
+        Instant to = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Instant from = to.minus(Duration.ofDays(1));
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(get("GET /patients", r -> "/patients?after=" + pick(r, patientIds) + "&limit=100"));
+        endpoints.add(get("GET /patients?lastName", r -> "/patients?lastName=" + pick(r, lastNames) + "&limit=100"));
+        endpoints.add(get("GET /patients/{id}", r -> "/patients/" + pick(r, patientIds)));
+        endpoints.add(get("GET /patients/{id}?include", r -> "/patients/" + pick(r, patientIds) + "?include=clinicalData"));
+        endpoints.add(get("GET /patients/{id}/summary", r -> "/patients/" + pick(r, patientIds) + "/summary"));
+        endpoints.add(get("GET /patients/summaries", r -> "/patients/summaries?after=" + pick(r, patientIds) + "&limit=100"));
+        endpoints.add(get("GET .../clinicaldata", r -> "/patients/" + pick(r, patientIds) + "/clinicaldata?component=hr&limit=100"));
+        endpoints.add(get("GET .../clinicaldata/aggregate", r -> "/patients/" + pick(r, patientIds)
+                + "/clinicaldata/aggregate?component=hr&from=" + from + "&to=" + to + "&interval=PT1H"));
+        endpoints.add(get("GET .../clinicaldata/latest", r -> "/patients/" + pick(r, patientIds) + "/clinicaldata/latest"));
+        if (!readingIds.isEmpty()) {
+            endpoints.add(get("GET /clinicaldata/{id}", r -> "/clinicaldata/" + pick(r, readingIds)));
+        }
+        if (writes) {
+            endpoints.add(new Endpoint("POST /clinicaldata/clinicals", r -> post("/clinicaldata/clinicals",
+                    "{\"patientId\":" + pick(r, patientIds) + ",\"componentName\":\"hr\",\"componentValue\":\""
+                            + (55 + r.nextInt(50)) + "\"}")));
+        }
+        return endpoints;
+    }
+
+    /**
+     * Runs {@code concurrency} clients over the endpoint mix; only requests completed after the warmup count.
+     */
+    public List<EndpointStats> run(List<Endpoint> endpoints, int concurrency, Duration warmup, Duration duration)
+            throws InterruptedException {
+        int n = endpoints.size();
+        Histogram[] latencies = new Histogram[n];
+        LongAdder[] errors = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            latencies[i] = new ConcurrentHistogram(Duration.ofMinutes(1).toNanos(), 3);
+            errors[i] = new LongAdder();
+        }
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(concurrency);
+            for (int c = 0; c < concurrency; c++) {
+                int offset = c;
+                // a client of its own to the rate limiter, should it be enabled
+                String clientKey = "load-driver-" + c;
+                futures.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (long i = offset; System.nanoTime() < deadline; i++) {
+                        int e = (int) (i % n);
+                        HttpRequest request = HttpRequest.newBuilder(endpoints.get(e).request().apply(random), (k, v) -> true)
+                                .header(CLIENT_HEADER, clientKey)
+                                .build();
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (IOException ex) {
+                            status = -1;
+                        }
+                        long end = System.nanoTime();
+                        if (start >= measureFrom && end <= deadline) {
+                            latencies[e].recordValue(Math.min(end - start, latencies[e].getHighestTrackableValue()));
+                            if (status < 200 || status >= 300) {
+                                errors[e].increment();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException(ex.getCause());
+                }
+            }
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        List<EndpointStats> stats = new ArrayList<>(n + 1);
+        Histogram total = new Histogram(Duration.ofMinutes(1).toNanos(), 3);
+        long totalErrors = 0;
+        for (int i = 0; i < n; i++) {
+            stats.add(stats(endpoints.get(i).name(), latencies[i], errors[i].sum(), seconds));
+            total.add(latencies[i]);
+            totalErrors += errors[i].sum();
+        }
+        stats.add(stats("TOTAL", total, totalErrors, seconds));
+        return stats;
+    }
+
+    public static void print(List<EndpointStats> stats, PrintStream out) {
+        out.printf("%-32s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (EndpointStats s : stats) {
+            out.printf("%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", s.name(), s.requests(), s.errors(),
+                    s.throughput(), s.p50Millis(), s.p99Millis(), s.p999Millis(), s.maxMillis());
+        }
+    }
+
+    private static EndpointStats stats(String name, Histogram h, long errors, double seconds) {
+        return new EndpointStats(name, h.getTotalCount(), errors, h.getTotalCount() / seconds,
+                h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(99) / 1e6,
+                h.getValueAtPercentile(99.9) / 1e6, h.getMaxValue() / 1e6);
+    }
+
+    private static <T> T pick(ThreadLocalRandom random, List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private Endpoint get(String name, Function<ThreadLocalRandom, String> path) {
+        return new Endpoint(name, r -> HttpRequest.newBuilder(URI.create(baseUrl + path.apply(r))).GET().build());
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private JsonNode getJson(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+}
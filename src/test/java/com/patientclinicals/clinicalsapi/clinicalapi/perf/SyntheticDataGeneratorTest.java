@@ -0,0 +1,81 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.controllers.ClinicalDataRequest;
+import com.patientclinicals.clinicalsapi.clinicalapi.ingest.ClinicalDataIngestService;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.NumericValue;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+class SyntheticDataGeneratorTest {
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final ClinicalDataIngestService ingestService = mock(ClinicalDataIngestService.class);
+    private final List<ClinicalDataRequest> inserted = new ArrayList<>();
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+    private SyntheticDataGenerator generator(int patients, int readingsPerComponent) {
+        AtomicLong ids = new AtomicLong();
+        when(patientRepository.save(any(Patient.class))).thenAnswer(inv -> {
+            Patient p = inv.getArgument(0);
+            p.setId(ids.incrementAndGet());
+            return p;
+        });
+        // the generator reuses its chunk list, so copy it at call time
+        when(ingestService.insertAllUnlogged(anyList())).thenAnswer(inv -> {
+            List<ClinicalDataRequest> chunk = inv.getArgument(0);
+            chunkSizes.add(chunk.size());
+            inserted.addAll(chunk);
+            return List.of();
+        });
+        return new SyntheticDataGenerator(new SyntheticDataProperties(patients, readingsPerComponent,
+                List.of("hr", "bp", "temp"), Duration.ofMinutes(5), 42), patientRepository, ingestService);
+    }
+
+    @Test
+    void run_emptyDatabase_createsPatientsTimesComponentsTimesReadings() {
+        generator(4, 500).run(null);
+
+        verify(patientRepository, times(4)).save(any(Patient.class));
+        // seeding is not part of the change feed
+        verify(ingestService, never()).insertAll(anyList());
+        assertThat(inserted).hasSize(4 * 3 * 500);
+        assertThat(chunkSizes).containsExactly(SyntheticDataGenerator.CHUNK_SIZE, 4 * 3 * 500 - SyntheticDataGenerator.CHUNK_SIZE);
+        assertThat(inserted).allSatisfy(r -> assertThat(NumericValue.parse(r.getComponentValue()).primary()).isNotNull());
+
+        List<ClinicalDataRequest> firstSeries = inserted.subList(0, 500);
+        assertThat(firstSeries).allSatisfy(r -> assertThat(r.getComponentName()).isEqualTo("hr"));
+        assertThat(firstSeries.get(1).getMeasuredDateTime().getTime() - firstSeries.get(0).getMeasuredDateTime().getTime())
+                .isEqualTo(Duration.ofMinutes(5).toMillis());
+    }
+
+    @Test
+    void run_populatedDatabase_addsNothing() {
+        SyntheticDataGenerator generator = generator(4, 10);
+        when(patientRepository.count()).thenReturn(1L);
+
+        generator.run(null);
+
+        verify(patientRepository, never()).save(any(Patient.class));
+        verifyNoInteractions(ingestService);
+    }
+
+    @Test
+    void value_sameSeed_sameValues() {
+        assertThat(SyntheticDataGenerator.value("bp", new Random(7))).isEqualTo(SyntheticDataGenerator.value("bp", new Random(7)));
+        assertThat(SyntheticDataGenerator.value("bp", new Random(7))).matches("\\d+/\\d+");
+        assertThat(SyntheticDataGenerator.value("temp", new Random(7))).matches("\\d+\\.\\d");
+    }
+}
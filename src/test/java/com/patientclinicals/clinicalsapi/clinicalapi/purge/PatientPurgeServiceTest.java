@@ -0,0 +1,103 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.purge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+/**
+ * {@code DELETE /patients/{id}} with a threshold of 5 readings: below it the patient is deleted inline,
+ * above it the purge runs in the background in chunks of 3 and its progress can be polled.
+ */
+@SpringBootTest(properties = {"clinicals.purge.async-threshold=5", "clinicals.purge.chunk-size=3"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PatientPurgeServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ClinicalDataRepository clinicalDataRepository;
+
+    @Autowired
+    private PatientPurgeService purgeService;
+
+    private Patient patientWithReadings(int readings) {
+        Patient patient = patientRepository.save(new Patient("Purge", "Candidate", 90));
+        List<ClinicalData> history = new ArrayList<>();
+        for (int i = 0; i < readings; i++) {
+            ClinicalData reading = new ClinicalData("hr", String.valueOf(60 + i), new Timestamp(1_700_000_000_000L + i * 60_000L));
+            reading.setPatient(patient);
+            history.add(reading);
+        }
+        clinicalDataRepository.saveAll(history);
+        return patient;
+    }
+
+    private PurgeStatus awaitFinished(Long patientId) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+        while (Instant.now().isBefore(deadline)) {
+            PurgeStatus status = purgeService.status(patientId).orElseThrow();
+            if (status.isFinished()) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("purge of patient " + patientId + " did not finish");
+    }
+
+    @Test
+    void smallHistory_isDeletedInline() throws Exception {
+        Patient patient = patientWithReadings(5);
+
+        mockMvc.perform(delete("/patients/{id}", patient.getId())).andExpect(status().isNoContent());
+
+        assertThat(patientRepository.existsById(patient.getId())).isFalse();
+        assertThat(clinicalDataRepository.countByPatientId(patient.getId())).isZero();
+        assertThat(purgeService.status(patient.getId())).isEmpty();
+    }
+
+    @Test
+    void largeHistory_isPurgedInChunksInTheBackground() throws Exception {
+        Patient patient = patientWithReadings(11);
+
+        mockMvc.perform(delete("/patients/{id}", patient.getId()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/patients/" + patient.getId() + "/purge"));
+
+        PurgeStatus status = awaitFinished(patient.getId());
+        assertThat(status.state()).isEqualTo(PurgeStatus.State.COMPLETED);
+        assertThat(status.total()).isEqualTo(11);
+        assertThat(status.deleted()).isEqualTo(11);
+        assertThat(patientRepository.existsById(patient.getId())).isFalse();
+        assertThat(clinicalDataRepository.countByPatientId(patient.getId())).isZero();
+
+        mockMvc.perform(get("/patients/{id}/purge", patient.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("COMPLETED")))
+                .andExpect(jsonPath("$.deleted", is(11)));
+        mockMvc.perform(get("/patients/{id}", patient.getId())).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,135 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.UnsupportedEncodingException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+/**
+ * Readings stored through the API reach the open streams of their patient, filtered by component; a
+ * subscriber that falls behind keeps the newest reading per component.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadingBroadcasterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ReadingBroadcaster broadcaster;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = patientRepository.create(new Patient("Stream", "Watcher", 50));
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.removeWithClinicalDataById(patient.getId());
+    }
+
+    private MockHttpServletResponse subscribe(String component) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/patients/{patientId}/clinicaldata/stream", patient.getId());
+        if (component != null) {
+            builder.param("component", component);
+        }
+        return mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    private void postReading(String component, String value) throws Exception {
+        mockMvc.perform(post("/clinicaldata/clinicals").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientId\":" + patient.getId() + ",\"componentName\":\"" + component
+                                + "\",\"componentValue\":\"" + value + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    // events are written by the broadcaster's sender threads
+    private static String awaitContent(MockHttpServletResponse response, String expected)
+            throws InterruptedException, UnsupportedEncodingException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+            content = response.getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
+    @Test
+    void storedReadings_arePushedToTheirPatientsStreams() throws Exception {
+        int before = broadcaster.subscriberCount();
+        MockHttpServletResponse all = subscribe(null);
+        MockHttpServletResponse heartRateOnly = subscribe("hr");
+        assertThat(broadcaster.subscriberCount()).isEqualTo(before + 2);
+
+        postReading("bp", "120/80");
+        postReading("hr", "72");
+
+        String allEvents = awaitContent(all, "\"componentValue\":\"72\"");
+        assertThat(allEvents).contains("event:reading", "\"componentValue\":\"120/80\"");
+        assertThat(allEvents.indexOf("120/80")).isLessThan(allEvents.indexOf("\"72\""));
+        String heartRateEvents = awaitContent(heartRateOnly, "\"componentValue\":\"72\"");
+        assertThat(heartRateEvents).doesNotContain("120/80");
+    }
+
+    @Test
+    void unknownPatient_isNotFound() throws Exception {
+        mockMvc.perform(get("/patients/{patientId}/clinicaldata/stream", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void fullQueue_coalescesByComponent_thenDropsTheOldest() {
+        ReadingBroadcaster.Subscriber subscriber = new ReadingBroadcaster.Subscriber(1L, null, new SseEmitter());
+        assertThat(subscriber.offer(reading(1, "hr"), 3)).isEqualTo(ReadingBroadcaster.Overflow.NONE);
+        assertThat(subscriber.offer(reading(2, "bp"), 3)).isEqualTo(ReadingBroadcaster.Overflow.NONE);
+        assertThat(subscriber.offer(reading(3, "hr"), 3)).isEqualTo(ReadingBroadcaster.Overflow.NONE);
+
+        // full: the oldest hr reading makes way for the new one
+        assertThat(subscriber.offer(reading(4, "hr"), 3)).isEqualTo(ReadingBroadcaster.Overflow.COALESCED);
+        // full and nothing to coalesce with: the oldest reading goes
+        assertThat(subscriber.offer(reading(5, "temp"), 3)).isEqualTo(ReadingBroadcaster.Overflow.DROPPED);
+
+        List<Long> queued = subscriber.drain().stream().map(ClinicalData::getId).toList();
+        assertThat(queued).containsExactly(3L, 4L, 5L);
+        assertThat(subscriber.hasPending()).isFalse();
+    }
+
+    private static ClinicalData reading(long id, String component) {
+        ClinicalData reading = new ClinicalData(component, "1", new Timestamp(id));
+        reading.setId(id);
+        return reading;
+    }
+}
@@ -0,0 +1,116 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimiterTest {
+
+    private static final long NO_WAIT = 0;
+    private static final long WAIT = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void congestion_shrinksTheLimit_andItRecoversWhenSaturatedWithoutWaiters() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 10, 0.5);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.acquire(TrafficClass.READ, NO_WAIT)).isTrue();
+            limiter.release(TrafficClass.READ, true);
+        }
+        // 10 * 0.9^10 = 3.5
+        assertThat(limiter.limit()).isEqualTo(3);
+
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < limiter.limit(); j++) {
+                assertThat(limiter.acquire(TrafficClass.READ, NO_WAIT)).isTrue();
+            }
+            assertThat(limiter.acquire(TrafficClass.READ, NO_WAIT)).isFalse();
+            for (int j = limiter.limit(); j > 0; j--) {
+                limiter.release(TrafficClass.READ, false);
+            }
+        }
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void limit_neverDropsBelowTheMinimum() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 4, 0.5);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(TrafficClass.READ, NO_WAIT);
+            limiter.release(TrafficClass.READ, true);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    void ingest_holdsAtMostItsShare() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 4, 0.5);
+
+        assertThat(limiter.acquire(TrafficClass.INGEST, NO_WAIT)).isTrue();
+        assertThat(limiter.acquire(TrafficClass.INGEST, NO_WAIT)).isTrue();
+        assertThat(limiter.acquire(TrafficClass.INGEST, NO_WAIT)).isFalse();
+        assertThat(limiter.acquire(TrafficClass.READ, NO_WAIT)).isTrue();
+        assertThat(limiter.acquire(TrafficClass.READ, NO_WAIT)).isTrue();
+        assertThat(limiter.available()).isZero();
+    }
+
+    @Test
+    void freedSlot_goesToAWaitingReadBeforeAWaitingIngest() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1.0);
+        assertThat(limiter.acquire(TrafficClass.READ, NO_WAIT)).isTrue();
+
+        CompletableFuture<Boolean> ingest = CompletableFuture.supplyAsync(() -> acquire(limiter, TrafficClass.INGEST, WAIT));
+        awaitWaiting(limiter, 1);
+        CompletableFuture<Boolean> read = CompletableFuture.supplyAsync(() -> acquire(limiter, TrafficClass.READ, WAIT));
+        awaitWaiting(limiter, 2);
+
+        limiter.release(TrafficClass.READ, false);
+        assertThat(read.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ingest).isNotDone();
+
+        limiter.release(TrafficClass.READ, false);
+        assertThat(ingest.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void waitingIngest_getsAFreeSlotOnceNoReadIsWaiting() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 2, 1.0);
+        assertThat(limiter.acquire(TrafficClass.READ, NO_WAIT)).isTrue();
+        limiter.release(TrafficClass.READ, true);
+        assertThat(limiter.limit()).isEqualTo(1);
+        assertThat(limiter.acquire(TrafficClass.READ, NO_WAIT)).isTrue();
+
+        CompletableFuture<Boolean> read = CompletableFuture.supplyAsync(() -> acquire(limiter, TrafficClass.READ, WAIT));
+        awaitWaiting(limiter, 1);
+        CompletableFuture<Boolean> ingest = CompletableFuture.supplyAsync(() -> acquire(limiter, TrafficClass.INGEST, WAIT));
+        awaitWaiting(limiter, 2);
+
+        // the release grows the limit to 2 but signals only the read; the ingest must not wait out its timeout
+        limiter.release(TrafficClass.READ, false);
+
+        assertThat(read.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(ingest.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static boolean acquire(AdaptiveLimiter limiter, TrafficClass trafficClass, long nanos) {
+        try {
+            return limiter.acquire(trafficClass, nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitWaiting(AdaptiveLimiter limiter, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + WAIT;
+        while (limiter.waiting() < waiting && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(limiter.waiting()).isEqualTo(waiting);
+    }
+}
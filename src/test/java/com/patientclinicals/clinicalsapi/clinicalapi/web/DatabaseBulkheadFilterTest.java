@@ -0,0 +1,128 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class DatabaseBulkheadFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DatabaseBulkheadFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new DatabaseBulkheadFilter(new BulkheadProperties(true, 1, 1, 0.5, Duration.ofMillis(50)),
+                mock(DataSource.class), meterRegistry);
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/patientservices" + uri);
+        request.setContextPath("/patientservices");
+        return request;
+    }
+
+    @Test
+    void doFilter_withFreePermit_passesRequestThrough() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/patients/1"), response, chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("clinicals.bulkhead.available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_whenSaturated_rejectsWith503AfterTimeout() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (req, res) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(request("/patients/1"), new MockHttpServletResponse(), blocking);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("/patients/2"), response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("clinicals.bulkhead.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        holder.join();
+        assertThat(meterRegistry.get("clinicals.bulkhead.available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_actuatorRequests_bypassSaturatedBulkhead() throws Exception {
+        filter = new DatabaseBulkheadFilter(new BulkheadProperties(true, 1, 1, 0.5, Duration.ZERO),
+                mock(DataSource.class), meterRegistry);
+        FilterChain nested = (req, res) -> {
+            MockFilterChain inner = new MockFilterChain();
+            // a new filter invocation for a different request while the only permit is held
+            filter.doFilter(request("/actuator/health"), new MockHttpServletResponse(), inner);
+            assertThat(inner.getRequest()).isNotNull();
+        };
+
+        filter.doFilter(request("/patients/1"), new MockHttpServletResponse(), nested);
+
+        assertThat(meterRegistry.get("clinicals.bulkhead.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    void doFilter_disabled_doesNotLimit() throws Exception {
+        filter = new DatabaseBulkheadFilter(new BulkheadProperties(false, 1, 1, 0.5, Duration.ZERO),
+                mock(DataSource.class), meterRegistry);
+        FilterChain nested = (req, res) -> {
+            MockFilterChain inner = new MockFilterChain();
+            filter.doFilter(request("/patients/2"), new MockHttpServletResponse(), inner);
+            assertThat(inner.getRequest()).isNotNull();
+        };
+
+        filter.doFilter(request("/patients/1"), new MockHttpServletResponse(), nested);
+    }
+
+    @Test
+    void poolSize_readsHikariMaximumPoolSize() {
+        try (HikariDataSource hikari = new HikariDataSource()) {
+            hikari.setMaximumPoolSize(7);
+
+            assertThat(DatabaseBulkheadFilter.poolSize(hikari)).isEqualTo(7);
+        }
+        assertThat(DatabaseBulkheadFilter.poolSize(mock(DataSource.class)))
+                .isEqualTo(DatabaseBulkheadFilter.FALLBACK_PERMITS);
+    }
+}
@@ -0,0 +1,66 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+/**
+ * The Prometheus scrape carries the request, repository, connection pool and Hibernate meters.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class PrometheusScrapeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = patientRepository.save(new Patient("Barbara", "Liskov", 85));
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteById(patient.getId());
+    }
+
+    @Test
+    void prometheus_exposesLatencyHistogramsAndPoolHibernateAndLoggingMeters() throws Exception {
+        mockMvc.perform(get("/patients/{id}", patient.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/patients").param("lastName", "liskov")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("http_server_requests_seconds_bucket{application=\"clinicalapi\",error=\"none\",exception=\"none\",handler=\"PatientController.getById\""),
+                        containsString("handler=\"PatientController.searchByLastName\""),
+                        containsString("spring_data_repository_invocations_seconds_bucket{"),
+                        containsString("method=\"findByLastNameIgnoreCaseOrderByFirstNameAscIdAsc\""),
+                        containsString("hikaricp_connections_active{"),
+                        containsString("hikaricp_connections_pending{"),
+                        containsString("hikaricp_connections_acquire_seconds_bucket{"),
+                        containsString("hibernate_statements_total{"),
+                        containsString("logback_async_dropped_total{appender=\"ASYNC_FILE\""),
+                        containsString("logback_async_queue_size{appender=\"ASYNC_CONSOLE\""))));
+    }
+}
@@ -0,0 +1,83 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class QueryBudgetFilterTest {
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    static class Handlers {
+        @QueryBudget(2)
+        public void budgeted() {
+        }
+
+        public void unbudgeted() {
+        }
+    }
+
+    // a chain that resolves to `handler` and issues `statements` statements
+    private FilterChain chain(String handler, int statements) throws NoSuchMethodException {
+        HandlerMethod method = new HandlerMethod(new Handlers(), Handlers.class.getMethod(handler));
+        return (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, method);
+            for (int i = 0; i < statements; i++) {
+                counter.inspect("select 1");
+            }
+        };
+    }
+
+    private void perform(boolean failOnExceed, FilterChain chain) throws Exception {
+        new QueryBudgetFilter(new QueryBudgetProperties(true, failOnExceed), counter, meterRegistry)
+                .doFilter(new MockHttpServletRequest("GET", "/patients"), new MockHttpServletResponse(), chain);
+    }
+
+    @Test
+    void withinBudget_recordsStatementCount() throws Exception {
+        perform(true, chain("budgeted", 2));
+
+        assertThat(meterRegistry.get("http.server.requests.statements").tag("handler", "Handlers.budgeted")
+                .summary().max()).isEqualTo(2);
+        assertThat(meterRegistry.find("http.server.requests.over.budget").counter()).isNull();
+    }
+
+    @Test
+    void overBudget_warnsAndCounts() throws Exception {
+        perform(false, chain("budgeted", 3));
+
+        assertThat(meterRegistry.get("http.server.requests.over.budget").tag("handler", "Handlers.budgeted")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void overBudget_failOnExceed_throws() {
+        assertThatThrownBy(() -> perform(true, chain("budgeted", 3)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Handlers.budgeted issued 3 SQL statements, budget is 2");
+    }
+
+    @Test
+    void withoutBudget_onlyRecords() throws Exception {
+        perform(true, chain("unbudgeted", 50));
+
+        assertThat(meterRegistry.get("http.server.requests.statements").summary().max()).isEqualTo(50);
+    }
+
+    @Test
+    void statementsOutsideARequest_areNotCounted() throws Exception {
+        counter.inspect("select 1");
+        perform(true, chain("budgeted", 0));
+
+        assertThat(meterRegistry.get("http.server.requests.statements").summary().max()).isZero();
+    }
+}
@@ -0,0 +1,178 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.patientclinicals.clinicalsapi.clinicalapi.cache.LatestVitalsCache;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.ClinicalData;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.Patient;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.ClinicalDataRepository;
+import com.patientclinicals.clinicalsapi.clinicalapi.models.repos.PatientRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Calls every endpoint once with cold caches against patients that have several readings. With
+ * {@code fail-on-exceed} on (test profile), a request that issues more statements than its handler's
+ * {@link QueryBudget}, for example because a change added a query or a per-row lazy load, fails here.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryBudgetTest {
+
+    private static final int READINGS_PER_COMPONENT = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ClinicalDataRepository clinicalDataRepository;
+
+    @Autowired
+    private LatestVitalsCache latestVitalsCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    private final List<Long> patientIds = new ArrayList<>();
+    private Patient patient;
+    private ClinicalData reading;
+
+    @BeforeEach
+    void setUp() {
+        for (String lastName : List.of("Budget", "Budget", "Other")) {
+            Patient p = patientRepository.save(new Patient("Query", lastName, 50));
+            patientIds.add(p.getId());
+            List<ClinicalData> readings = new ArrayList<>();
+            for (int i = 0; i < READINGS_PER_COMPONENT; i++) {
+                for (String component : List.of("hr", "bp")) {
+                    ClinicalData cd = new ClinicalData(component, component.equals("hr") ? "7" + i : "120/8" + i,
+                            Timestamp.valueOf("2025-10-15 0" + i + ":00:00"));
+                    cd.setPatient(p);
+                    readings.add(cd);
+                }
+            }
+            reading = clinicalDataRepository.saveAll(readings).get(0);
+            patient = p;
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientIds.forEach(id -> patientRepository.findById(id).ifPresent(patientRepository::delete));
+    }
+
+    private void perform(MockHttpServletRequestBuilder request, ResultMatcher expected) throws Exception {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        patientIds.forEach(latestVitalsCache::invalidate);
+        mockMvc.perform(request).andExpect(expected);
+    }
+
+    private static MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, String body) {
+        return request.contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+
+    @Test
+    void everyHandler_declaresABudget() {
+        List<String> missing = handlerMapping.getHandlerMethods().values().stream()
+                .filter(m -> m.getBeanType().getPackageName().startsWith("com.patientclinicals"))
+                .filter(m -> !m.hasMethodAnnotation(QueryBudget.class))
+                .map(HandlerMethod::getShortLogMessage)
+                .toList();
+
+        assertThat(missing).isEmpty();
+    }
+
+    @Test
+    void patientReads_stayWithinBudget() throws Exception {
+        perform(get("/patients").param("limit", "2"), status().isOk());
+        perform(get("/patients").param("lastName", "budget"), status().isOk());
+        perform(get("/patients").accept("application/x-ndjson"), status().isOk());
+        perform(get("/patients/{id}", patient.getId()), status().isOk());
+        perform(get("/patients/{id}", patient.getId()).header("If-None-Match", "\"0\""), status().isNotModified());
+        perform(get("/patients/{id}", patient.getId()).header("If-None-Match", "\"9\""), status().isOk());
+        perform(get("/patients/{id}", patient.getId()).param("include", "clinicalData"), status().isOk());
+        perform(get("/patients/{id}/summary", patient.getId()), status().isOk());
+        perform(get("/patients/summaries").param("limit", "2"), status().isOk());
+    }
+
+    @Test
+    void patientWrites_stayWithinBudget() throws Exception {
+        String body = "{\"firstName\":\"Query\",\"lastName\":\"Budget\",\"age\":51}";
+        perform(json(post("/patients"), body), status().isCreated());
+        perform(json(put("/patients/{id}", patient.getId()), body).header("If-Match", "\"0\""), status().isOk());
+        perform(json(put("/patients/{id}", patient.getId()), body).header("If-Match", "\"0\""),
+                status().isPreconditionFailed());
+        perform(patch("/patients/{id}", patient.getId()).contentType(MergePatch.MEDIA_TYPE).content("{\"age\":52}"),
+                status().isNoContent());
+        perform(delete("/patients/{id}", patient.getId()), status().isNoContent());
+        perform(get("/patients/{id}/purge", patient.getId()), status().isNotFound());
+        patientIds.addAll(patientRepository.findByLastNameIgnoreCaseOrderByFirstNameAscIdAsc("budget",
+                Limit.unlimited()).stream().map(Patient::getId).toList());
+    }
+
+    @Test
+    void clinicalDataEndpoints_stayWithinBudget() throws Exception {
+        Long patientId = patient.getId();
+        perform(get("/clinicaldata/{id}", reading.getId()), status().isOk());
+        perform(get("/clinicaldata/{id}", reading.getId()).header("If-None-Match", "\"9\""), status().isOk());
+        perform(json(post("/clinicaldata/clinicals"),
+                "{\"patientId\":" + patientId + ",\"componentName\":\"hr\",\"componentValue\":\"80\"}"), status().isOk());
+        perform(json(post("/clinicaldata/clinicals/batch"), "["
+                + "{\"patientId\":" + patientId + ",\"componentName\":\"hr\",\"componentValue\":\"81\"},"
+                + "{\"patientId\":" + patientIds.get(0) + ",\"componentName\":\"hr\",\"componentValue\":\"82\"},"
+                + "{\"patientId\":" + patientIds.get(1) + ",\"componentName\":\"bp\",\"componentValue\":\"120/80\"}]"),
+                status().isCreated());
+        perform(json(put("/clinicaldata/{id}", reading.getId()),
+                "{\"componentName\":\"hr\",\"componentValue\":\"79\",\"measuredDateTime\":\"2025-10-15T09:00:00Z\"}"),
+                status().isOk());
+        perform(patch("/clinicaldata/{id}", reading.getId()).header("If-Match", "\"1\"")
+                .contentType(MergePatch.MEDIA_TYPE).content("{\"componentValue\":\"78\"}"), status().isNoContent());
+        perform(delete("/clinicaldata/{id}", reading.getId()), status().isNoContent());
+        // the page above holds both patient and reading upserts
+        perform(get("/changes"), status().isOk());
+        perform(get("/changes").param("since", "0"), status().isOk());
+    }
+
+    @Test
+    void patientClinicalDataReads_stayWithinBudget() throws Exception {
+        Long patientId = patient.getId();
+        perform(get("/patients/{id}/clinicaldata", patientId).param("limit", "3"), status().isOk());
+        perform(get("/patients/{id}/clinicaldata", patientId).param("component", "hr"), status().isOk());
+        perform(get("/patients/{id}/clinicaldata/aggregate", patientId).param("component", "bp")
+                .param("from", "2025-10-15T00:00:00Z").param("to", "2025-10-16T00:00:00Z").param("interval", "PT2H"),
+                status().isOk());
+        perform(get("/patients/{id}/clinicaldata/latest", patientId), status().isOk());
+        perform(get("/patients/{id}/clinicaldata/stream", patientId), status().isOk());
+    }
+}
@@ -0,0 +1,100 @@
+package com.patientclinicals.clinicalsapi.clinicalapi.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // one read and one write per ten seconds, bursts of two; "gateway" gets twice that
+        filter = new RateLimitFilter(new RateLimitProperties(true, "X-API-Key", 0.1, 2, 0.1, 2,
+                Map.of("gateway", 2.0), 100), meterRegistry);
+    }
+
+    private MockHttpServletResponse perform(String method, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/patientservices/patients");
+        request.setContextPath("/patientservices");
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void client_overItsBurst_getsTooManyRequestsWithRetryAfter() throws Exception {
+        assertThat(perform("GET", "device-1").getStatus()).isEqualTo(200);
+        assertThat(perform("GET", "device-1").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse limited = perform("GET", "device-1");
+
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(Integer.parseInt(limited.getHeader(HttpHeaders.RETRY_AFTER))).isBetween(9, 10);
+        assertThat(meterRegistry.get("clinicals.ratelimit.rejected").tag("class", "read").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void readsAndWrites_andClients_haveSeparateBuckets() throws Exception {
+        perform("GET", "device-1");
+        perform("GET", "device-1");
+        assertThat(perform("GET", "device-1").getStatus()).isEqualTo(429);
+
+        assertThat(perform("POST", "device-1").getStatus()).isEqualTo(200);
+        assertThat(perform("GET", "device-2").getStatus()).isEqualTo(200);
+        // no key: limited by remote address
+        assertThat(perform("GET", null).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void configuredClient_getsItsScaledBurst() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertThat(perform("POST", "gateway").getStatus()).isEqualTo(200);
+        }
+        assertThat(perform("POST", "gateway").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void buckets_beyondMaxClients_forgetTheLeastRecentlyUsed() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(new RateLimitProperties(true, "X-API-Key", 0.1, 1, 0.1, 1, Map.of(), 2),
+                meterRegistry);
+        perform("GET", "device-1");
+        perform("GET", "device-2");
+        assertThat(perform("GET", "device-1").getStatus()).isEqualTo(429);
+
+        // device-2 is now the least recently used and makes room for device-3
+        perform("GET", "device-3");
+
+        assertThat(meterRegistry.get("clinicals.ratelimit.clients").gauge().value()).isEqualTo(2);
+        assertThat(perform("GET", "device-1").getStatus()).isEqualTo(429);
+        assertThat(perform("GET", "device-2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void tokenBucket_refillsAtItsRate() {
+        RateLimitFilter.TokenBucket bucket = new RateLimitFilter.TokenBucket(2, 1, 0);
+
+        assertThat(bucket.tryTake(0)).isZero();
+        assertThat(bucket.tryTake(0)).isEqualTo(500_000_000L);
+        assertThat(bucket.tryTake(250_000_000L)).isEqualTo(250_000_000L);
+        assertThat(bucket.tryTake(500_000_000L)).isZero();
+        assertThat(bucket.tryTake(1_000_000_000L)).isZero();
+    }
+}
@@ -0,0 +1,92 @@
+package db.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class V6__backfill_clinicaldata_numeric_valuesTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:backfill;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE clinicaldata (id BIGINT PRIMARY KEY, component_value VARCHAR(255) NOT NULL, "
+                    + "primary_value DOUBLE NULL, secondary_value DOUBLE NULL)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO clinicaldata (id, component_value) VALUES (?, ?)")) {
+            // more rows than one chunk, so the walk has to continue past the first page
+            for (int id = 1; id <= 12_000; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, id % 3 == 0 ? "120/" + (id % 100) : id % 3 == 1 ? String.valueOf(id) : "n/a");
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    void migrate_fillsNumericColumnsForEveryParsableRow() throws Exception {
+        Context context = mock(Context.class);
+        when(context.getConnection()).thenReturn(connection);
+
+        new V6__backfill_clinicaldata_numeric_values().migrate(context);
+
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT "
+                     + "SUM(CASE WHEN primary_value IS NOT NULL THEN 1 ELSE 0 END), "
+                     + "SUM(CASE WHEN secondary_value IS NOT NULL THEN 1 ELSE 0 END), "
+                     + "(SELECT primary_value FROM clinicaldata WHERE id = 11998), "
+                     + "(SELECT secondary_value FROM clinicaldata WHERE id = 11997) "
+                     + "FROM clinicaldata")) {
+            rs.next();
+            assertThat(rs.getLong(1)).isEqualTo(8000);
+            assertThat(rs.getLong(2)).isEqualTo(4000);
+            assertThat(rs.getDouble(3)).isEqualTo(11998.0);
+            assertThat(rs.getDouble(4)).isEqualTo(97.0);
+        }
+    }
+
+    @Test
+    void migrate_rerun_leavesFilledRowsAlone() throws Exception {
+        Context context = mock(Context.class);
+        when(context.getConnection()).thenReturn(connection);
+        // filled by an earlier, interrupted run (or by the application) with a value the parser would not produce
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("UPDATE clinicaldata SET primary_value = -1 WHERE id <= 5000");
+        }
+
+        new V6__backfill_clinicaldata_numeric_values().migrate(context);
+
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT "
+                     + "SUM(CASE WHEN primary_value = -1 THEN 1 ELSE 0 END), "
+                     + "SUM(CASE WHEN primary_value IS NOT NULL THEN 1 ELSE 0 END) "
+                     + "FROM clinicaldata")) {
+            rs.next();
+            assertThat(rs.getLong(1)).isEqualTo(5000);
+            // 5000 already filled, plus the 4667 parsable rows among ids 5001..12000
+            assertThat(rs.getLong(2)).isEqualTo(9667);
+        }
+    }
+}